@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.benchmark;
+
+import com.paulorodrigues.authentication.address.entity.Address;
+import com.paulorodrigues.authentication.address.entity.City;
+import com.paulorodrigues.authentication.address.entity.Country;
+import com.paulorodrigues.authentication.address.entity.StateCountry;
+import com.paulorodrigues.authentication.commons.enums.Gender;
+import com.paulorodrigues.authentication.commons.enums.TipoLogradouro;
+import com.paulorodrigues.authentication.person.entity.Person;
+import com.paulorodrigues.authentication.user.entity.Role;
+import com.paulorodrigues.authentication.user.entity.User;
+import com.paulorodrigues.authentication.user.repository.UserRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sample entities and a {@link UserRepository} stub shared by the benchmarks.
+ *
+ * @author paulo.rodrigues
+ */
+final class BenchmarkFixtures {
+
+    static final String USERNAME = "benchmark.user";
+    static final String PASSWORD = "benchmark-password";
+    static final String VALID_CPF = "52998224725";
+    static final String INVALID_CPF = "52998224726";
+
+    private BenchmarkFixtures() {
+    }
+
+    static User user(String encodedPassword) {
+        Role admin = new Role("ROLE_ADMIN");
+        admin.setId(1L);
+        Role user = new Role("ROLE_USER");
+        user.setId(2L);
+        return User.builder()
+                .id(1L)
+                .username(USERNAME)
+                .password(encodedPassword)
+                .person(person())
+                .roles(List.of(admin, user))
+                .createAt(LocalDate.of(2023, 1, 1))
+                .createBy(USERNAME)
+                .build();
+    }
+
+    static Person person() {
+        Country country = Country.builder().id(1L).name("Brasil").build();
+        StateCountry state = StateCountry.builder().id(1L).name("Rio Grande do Sul").country(country).build();
+        City city = City.builder().id(1L).name("Porto Alegre").state(state).country(country).ibgeCode("4314902").build();
+        Address address = Address.builder()
+                .id(1L)
+                .logradouro(TipoLogradouro.AVENUE)
+                .city(city)
+                .name("Ipiranga")
+                .number("6681")
+                .cep("90619900")
+                .neighborhood("Partenon")
+                .build();
+        return Person.builder()
+                .id(1L)
+                .firstName("Paulo")
+                .lastName("Rodrigues")
+                .email("benchmark@paulorodrigues.com")
+                .cpf(VALID_CPF)
+                .gender(Gender.M)
+                .birthdate(LocalDate.of(1990, 5, 17))
+                .birthCity(city)
+                .birthCountry(country)
+                .address(address)
+                .build();
+    }
+
+    /**
+     * Answers {@code findByUsername} from a map, the only repository call on the benchmarked
+     * paths; anything else fails so a new call shows up instead of being measured as a no-op.
+     */
+    static UserRepository userRepository(User... users) {
+        Map<String, User> byUsername = Arrays.stream(users).collect(Collectors.toMap(User::getUsername, Function.identity()));
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByUsername":
+                            return byUsername.get((String) args[0]);
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "UserRepository stub " + byUsername.keySet();
+                        default:
+                            throw new UnsupportedOperationException(method.getName() + " is not stubbed for the benchmarks");
+                    }
+                });
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.benchmark;
+
+import com.paulorodrigues.authentication.commons.model.PersonDTO;
+import com.paulorodrigues.authentication.commons.model.UserDTO;
+import com.paulorodrigues.authentication.commons.util.FormatUtil;
+import com.paulorodrigues.authentication.person.entity.Person;
+import com.paulorodrigues.authentication.user.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping and CPF validation, both on every user and person response.
+ *
+ * @author paulo.rodrigues
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoBenchmark {
+
+    private User user;
+    private Person person;
+
+    @Setup
+    public void setup() {
+        user = BenchmarkFixtures.user("{noop}" + BenchmarkFixtures.PASSWORD);
+        person = user.getPerson();
+    }
+
+    @Benchmark
+    public UserDTO userToDTO() {
+        return user.toDTO();
+    }
+
+    @Benchmark
+    public PersonDTO personToDTO() {
+        return person.toDTO();
+    }
+
+    @Benchmark
+    public boolean isCPFValid() {
+        return FormatUtil.isCPF(BenchmarkFixtures.VALID_CPF);
+    }
+
+    @Benchmark
+    public boolean isCPFInvalid() {
+        return FormatUtil.isCPF(BenchmarkFixtures.INVALID_CPF);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.benchmark;
+
+import com.paulorodrigues.authentication.user.service.CalibratedPasswordEncoder;
+import com.paulorodrigues.authentication.user.service.PasswordHashingEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code matches} with the encoders the service wires: the {@link CalibratedPasswordEncoder}
+ * on the calling thread, and the same encoder behind the {@link PasswordHashingEngine} pool, alone
+ * and with concurrent logins. Strength 0 calibrates to 250 ms like the default configuration.
+ *
+ * @author paulo.rodrigues
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    @Param({"10", "12", "0"})
+    private int strength;
+
+    private CalibratedPasswordEncoder calibratedEncoder;
+    private PasswordHashingEngine hashingEngine;
+    private String encodedPassword;
+
+    @Setup
+    public void setup() {
+        calibratedEncoder = strength > 0
+                ? new CalibratedPasswordEncoder(strength)
+                : CalibratedPasswordEncoder.calibrate(250, 10, 16);
+        hashingEngine = new PasswordHashingEngine(calibratedEncoder, 0, 64, 2, new SimpleMeterRegistry());
+        encodedPassword = calibratedEncoder.encode(BenchmarkFixtures.PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hashingEngine.shutdown();
+    }
+
+    @Benchmark
+    public boolean calibratedMatches() {
+        return calibratedEncoder.matches(BenchmarkFixtures.PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    public boolean engineMatches() {
+        return hashingEngine.matches(BenchmarkFixtures.PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean engineMatchesConcurrent() {
+        return hashingEngine.matches(BenchmarkFixtures.PASSWORD, encodedPassword);
+    }
+}
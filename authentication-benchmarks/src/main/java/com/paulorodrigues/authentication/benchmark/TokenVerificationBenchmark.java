@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paulorodrigues.authentication.commons.model.Token;
+import com.paulorodrigues.authentication.user.service.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
+import org.springframework.security.oauth2.provider.token.store.InMemoryTokenStore;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token check: local RS256 verification against a token store lookup.
+ * The in-memory store is the best case for the store path; a shared store adds a round trip.
+ *
+ * @author paulo.rodrigues
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    private SignedTokenService signedTokenService;
+    private TokenRevocationIndex tokenRevocationIndex;
+    private DefaultTokenServices storeTokenServices;
+    private String signedToken;
+    private String storedToken;
+
+    @Setup
+    public void setup() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LoginAttemptLimiter loginAttemptLimiter = new LoginAttemptLimiter(5, 50, 900, 6, 100000, meterRegistry);
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(
+                BenchmarkFixtures.userRepository(BenchmarkFixtures.user(BenchmarkFixtures.PASSWORD)),
+                new UserDetailsCache(10_000, 300, meterRegistry), new AuthorityRegistry(), loginAttemptLimiter);
+        UserDetails principal = userDetailsService.loadUserByUsername(BenchmarkFixtures.USERNAME);
+
+        signedTokenService = new SignedTokenService(new TokenKeyRing("", "", "", "", "", 3600), new ObjectMapper(),
+                userDetailsService, NoOpPasswordEncoder.getInstance(), loginAttemptLimiter);
+        tokenRevocationIndex = new TokenRevocationIndex(3600, 200_000, 0.01, meterRegistry);
+        signedToken = signedTokenService.issue(principal).getValue();
+
+        storeTokenServices = new DefaultTokenServices();
+        storeTokenServices.setTokenStore(new InMemoryTokenStore());
+        OAuth2Request request = new OAuth2Request(Collections.emptyMap(), "benchmark", principal.getAuthorities(), true,
+                Set.of("read"), Collections.emptySet(), null, Collections.emptySet(), Collections.emptyMap());
+        OAuth2Authentication authentication = new OAuth2Authentication(request,
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        storedToken = storeTokenServices.createAccessToken(authentication).getValue();
+    }
+
+    @Benchmark
+    public Token verifySigned() {
+        return signedTokenService.verify(signedToken);
+    }
+
+    @Benchmark
+    public Token verifySignedWithRevocationCheck() {
+        if (tokenRevocationIndex.isRevoked(signedToken)) {
+            return null;
+        }
+        return signedTokenService.verify(signedToken);
+    }
+
+    @Benchmark
+    public OAuth2Authentication loadFromTokenStore() {
+        return storeTokenServices.loadAuthentication(storedToken);
+    }
+}
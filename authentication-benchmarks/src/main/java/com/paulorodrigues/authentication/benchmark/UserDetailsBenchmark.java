@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.benchmark;
+
+import com.paulorodrigues.authentication.user.service.AuthorityRegistry;
+import com.paulorodrigues.authentication.user.service.CustomUserDetailsService;
+import com.paulorodrigues.authentication.user.service.LoginAttemptLimiter;
+import com.paulorodrigues.authentication.user.service.UserDetailsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Principal resolution: {@code loadUserByUsername} on a cache hit and on a miss served by a
+ * repository stub, and {@code getAuthorities} on the resolved principal.
+ *
+ * @author paulo.rodrigues
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDetailsBenchmark {
+
+    private CustomUserDetailsService userDetailsService;
+    private UserDetailsCache userDetailsCache;
+    private UserDetails principal;
+
+    @Setup
+    public void setup() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache = new UserDetailsCache(10_000, 300, meterRegistry);
+        LoginAttemptLimiter loginAttemptLimiter = new LoginAttemptLimiter(5, 50, 900, 6, 100000, meterRegistry);
+        userDetailsService = new CustomUserDetailsService(
+                BenchmarkFixtures.userRepository(BenchmarkFixtures.user("{noop}" + BenchmarkFixtures.PASSWORD)),
+                userDetailsCache, new AuthorityRegistry(), loginAttemptLimiter);
+        principal = userDetailsService.loadUserByUsername(BenchmarkFixtures.USERNAME);
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsernameCached() {
+        return userDetailsService.loadUserByUsername(BenchmarkFixtures.USERNAME);
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsernameUncached() {
+        userDetailsCache.removeUserFromCache(BenchmarkFixtures.USERNAME);
+        return userDetailsService.loadUserByUsername(BenchmarkFixtures.USERNAME);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return principal.getAuthorities();
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.commons.enums;
+
+/**
+ * How a paged listing fills its total: {@code EXACT} runs a count query, {@code NONE} only
+ * reports whether another page exists and {@code ESTIMATED} uses planner statistics or a
+ * recently cached count.
+ *
+ * @author paulo.rodrigues
+ */
+public enum CountMode {
+    EXACT, NONE, ESTIMATED
+}
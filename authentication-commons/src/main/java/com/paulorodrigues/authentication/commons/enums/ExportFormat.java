@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.commons.enums;
+
+import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
+import com.paulorodrigues.authentication.commons.util.MessageUtil;
+
+/**
+ * Formats of the streaming exports: one JSON document per line, or CSV with a header row.
+ *
+ * @author paulo.rodrigues
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat of(String format) throws InvalidRequestException {
+        for (ExportFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format) || value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new InvalidRequestException(MessageUtil.getMessage("EXPORT_FORMAT_INVALID"));
+    }
+}
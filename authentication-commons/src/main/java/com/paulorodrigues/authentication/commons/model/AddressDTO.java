@@ -42,6 +42,8 @@ public class AddressDTO {
     private String zipCode;
     private String neighborhood;
     private String coordination;
+    private Double latitude;
+    private Double longitude;
     private String referentialPoint;
     private String fmtAddress;
 }
\ No newline at end of file
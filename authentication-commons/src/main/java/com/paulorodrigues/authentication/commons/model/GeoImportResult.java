@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.commons.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of one run of the countries, states and cities import.
+ *
+ * @author paulo.rodrigues
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GeoImportResult {
+    private String source;
+    private int countriesCreated;
+    private int statesCreated;
+    private int citiesRead;
+    private int citiesWritten;
+    private int citiesUnchanged;
+    private int rowsSkipped;
+    private long elapsedMillis;
+}
@@ -45,6 +45,6 @@ public class PersonQuery extends PageableQuery {
     private String description;
 
     public String getName(){
-        return String.format(firstName, " ", lastName);
+        return firstName;
     }
 }
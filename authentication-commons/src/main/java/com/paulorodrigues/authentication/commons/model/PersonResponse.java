@@ -17,6 +17,7 @@
  */
 package com.paulorodrigues.authentication.commons.model;
 
+import com.paulorodrigues.authentication.commons.enums.CountMode;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -35,4 +36,17 @@ import org.springframework.data.domain.Page;
 public class PersonResponse {
 
     private Page<PersonDTO> people;
+    private String nextCursor;
+    /**
+     * Whether {@code people} has an exact total; with {@link CountMode#NONE} the total is only
+     * a lower bound and {@code hasNext} tells if another page exists.
+     */
+    private CountMode countMode;
+    private boolean hasNext;
+
+    public PersonResponse(Page<PersonDTO> people) {
+        this.people = people;
+        this.countMode = CountMode.EXACT;
+        this.hasNext = people.hasNext();
+    }
 }
@@ -21,7 +21,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
+ * Access token. In signed mode {@code value} is self-contained: the remaining fields are
+ * its claims, signed with the key identified by {@code keyId}.
  *
  * @author paulo.rodrigues
  */
@@ -31,5 +35,8 @@ import lombok.NoArgsConstructor;
 @Builder
 public class Token {
     private String userName;
-    private String value;    
+    private String value;
+    private List<String> roles;
+    private long expiresAt;
+    private String keyId;
 }
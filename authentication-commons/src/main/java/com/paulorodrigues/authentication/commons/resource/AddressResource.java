@@ -3,15 +3,22 @@ package com.paulorodrigues.authentication.commons.resource;
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.exception.NotFoundException;
 import com.paulorodrigues.authentication.commons.model.AddressDTO;
+import com.paulorodrigues.authentication.commons.model.AddressResponse;
+import com.paulorodrigues.authentication.commons.model.CepReloadResult;
 import com.paulorodrigues.authentication.commons.model.CityDTO;
 import com.paulorodrigues.authentication.commons.model.CountryDTO;
+import com.paulorodrigues.authentication.commons.model.GeoImportResult;
+import com.paulorodrigues.authentication.commons.model.Login;
 import com.paulorodrigues.authentication.commons.model.StateDTO;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -38,6 +45,41 @@ public interface AddressResource {
     @GetMapping(FIND_BY_ID_PATH)
     ResponseEntity<AddressDTO> getByPersonId(@PathVariable(value = "id") Long personId) throws NotFoundException;
 
+    @ApiOperation(value = "Get an address template by CEP",
+            notes = "It returns the city and neighborhood of a CEP, resolved from the local CEP index")
+    @GetMapping(FIND_BY_CEP_PATH)
+    ResponseEntity<AddressDTO> getByCep(@PathVariable(value = "cep") String cep) throws NotFoundException;
+
+    @ApiOperation(value = "Find addresses near a point",
+            notes = "It returns the addresses within radiusKm of latitude/longitude, nearest first")
+    @GetMapping(NEARBY_PATH)
+    ResponseEntity<List<AddressDTO>> getNearby(@RequestParam(value = "latitude") double latitude,
+                                               @RequestParam(value = "longitude") double longitude,
+                                               @RequestParam(value = "radiusKm") double radiusKm,
+                                               @RequestParam(value = "limit", defaultValue = "100") int limit) throws InvalidRequestException;
+
+    @ApiOperation(value = "Find addresses inside a bounding box",
+            notes = "It returns the addresses whose coordinates fall inside the box, e.g. the visible map area")
+    @GetMapping(WITHIN_BOX_PATH)
+    ResponseEntity<List<AddressDTO>> getWithin(@RequestParam(value = "minLatitude") double minLatitude,
+                                               @RequestParam(value = "minLongitude") double minLongitude,
+                                               @RequestParam(value = "maxLatitude") double maxLatitude,
+                                               @RequestParam(value = "maxLongitude") double maxLongitude,
+                                               @RequestParam(value = "limit", defaultValue = "100") int limit) throws InvalidRequestException;
+
+    @ApiOperation(value = "Search addresses",
+            notes = "It returns a page of addresses whose name, neighborhood or formatted address resemble the term, best match first, ignoring case and accents")
+    @GetMapping(SEARCH_PATH)
+    ResponseEntity<AddressResponse> search(@RequestParam(value = "term") String term,
+                                           @RequestParam(value = "currentPage", defaultValue = "1") int currentPage,
+                                           @RequestParam(value = "rowsPerPage", defaultValue = "20") int rowsPerPage);
+
+    @ApiOperation(value = "Export every address",
+            notes = "It streams all addresses ordered by id as NDJSON (default) or CSV")
+    @Secured({Login.ROLE_ADMIN})
+    @GetMapping(EXPORT_PATH)
+    ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) throws InvalidRequestException;
+
     @GetMapping(FIND_BY_NAME_PATH)
     ResponseEntity<List<AddressDTO>> getByName(@PathVariable(value = "name") String addressName);
 
@@ -56,6 +98,26 @@ public interface AddressResource {
     @GetMapping(GET_CITIES_PATH)
     ResponseEntity<List<CityDTO>> getAllCities(@PathVariable(value = "country") Long countryId, @PathVariable(value = "state") Long stateId);
 
+    @ApiOperation(value = "Autocomplete cities by name prefix",
+            notes = "It returns up to limit cities whose name starts with the prefix, ignoring case and accents")
+    @GetMapping(AUTOCOMPLETE_CITIES_PATH)
+    ResponseEntity<List<CityDTO>> autocompleteCities(@RequestParam(value = "prefix") String prefix,
+                                                     @RequestParam(value = "stateId", required = false) Long stateId,
+                                                     @RequestParam(value = "countryId", required = false) Long countryId,
+                                                     @RequestParam(value = "limit", defaultValue = "10") int limit);
+
+    @ApiOperation(value = "Import countries, states and cities",
+            notes = "It loads the configured IBGE city CSV, creating or updating cities by IBGE code")
+    @Secured({Login.ROLE_ADMIN})
+    @PostMapping(IMPORT_GEO_DATA_PATH)
+    ResponseEntity<GeoImportResult> importGeoData() throws InvalidRequestException, IOException;
+
+    @ApiOperation(value = "Reload the CEP index",
+            notes = "It rebuilds the CEP data file from the configured CSV when one is set, otherwise it maps the data file again")
+    @Secured({Login.ROLE_ADMIN})
+    @PostMapping(RELOAD_CEP_PATH)
+    ResponseEntity<CepReloadResult> reloadCepIndex() throws IOException;
+
     @GetMapping(GET_STATES_PATH)
     ResponseEntity<List<StateDTO>> getAllStates(@PathVariable(value = "country") Long countryId);
 
@@ -1,15 +1,17 @@
 package com.paulorodrigues.authentication.commons.resource;
 
+import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.model.Login;
+import com.paulorodrigues.authentication.commons.model.Token;
 import com.paulorodrigues.authentication.commons.model.UserDTO;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.*;
 
-import javax.servlet.http.HttpServletRequest;
+import static com.paulorodrigues.authentication.commons.util.ConstantsUtil.AUTHENTICATIONS_V1_BASE_API;
+import static com.paulorodrigues.authentication.commons.util.ConstantsUtil.TOKEN_PATH;
 
-@RequestMapping("/api/v1/authentications")
+@RequestMapping(AUTHENTICATIONS_V1_BASE_API)
 public interface AuthenticationResource {
 
     @ResponseBody
@@ -18,5 +20,8 @@ public interface AuthenticationResource {
     UserDTO user();
 
     @GetMapping("/logout")
-    boolean logout(HttpServletRequest request);
+    boolean logout();
+
+    @PostMapping(TOKEN_PATH)
+    ResponseEntity<Token> token(@RequestBody Login login) throws InvalidRequestException;
 }
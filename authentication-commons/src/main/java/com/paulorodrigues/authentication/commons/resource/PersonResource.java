@@ -2,13 +2,16 @@ package com.paulorodrigues.authentication.commons.resource;
 
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.exception.ValidationException;
+import com.paulorodrigues.authentication.commons.model.Login;
 import com.paulorodrigues.authentication.commons.model.PersonDTO;
 import com.paulorodrigues.authentication.commons.model.PersonRequest;
 import com.paulorodrigues.authentication.commons.model.PersonResponse;
 import com.paulorodrigues.authentication.commons.exception.NotFoundException;
 import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -20,7 +23,11 @@ public interface PersonResource {
     ResponseEntity<List<PersonDTO>> findAll();
 
     @PostMapping(ConstantsUtil.FIND_PAGEABLE_PATH)
-    ResponseEntity<PersonResponse> findByQueryPageable(@RequestBody PersonRequest personRequest);
+    ResponseEntity<PersonResponse> findByQueryPageable(@RequestBody PersonRequest personRequest) throws InvalidRequestException;
+
+    @Secured({Login.ROLE_ADMIN})
+    @GetMapping(ConstantsUtil.EXPORT_PATH)
+    ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) throws InvalidRequestException;
 
     @GetMapping(ConstantsUtil.FIND_BY_ID_PATH)
     ResponseEntity<PersonDTO> findById(@PathVariable(value = "id") Long personId) throws NotFoundException;
@@ -2,15 +2,17 @@ package com.paulorodrigues.authentication.commons.resource;
 
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.exception.NotFoundException;
+import com.paulorodrigues.authentication.commons.model.BulkUserResult;
+import com.paulorodrigues.authentication.commons.model.Login;
 import com.paulorodrigues.authentication.commons.model.RoleDTO;
 import com.paulorodrigues.authentication.commons.model.UpdatePassword;
 import com.paulorodrigues.authentication.commons.model.UserDTO;
 import com.paulorodrigues.authentication.commons.model.UserQuery;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 import java.util.Map;
 
@@ -20,7 +22,11 @@ import static com.paulorodrigues.authentication.commons.util.ConstantsUtil.*;
 public interface UserResource {
 
     @PostMapping(FIND_PAGEABLE_PATH)
-    List<UserDTO> findPageable(@RequestBody UserQuery filter, HttpServletRequest req, HttpServletResponse res);
+    ResponseEntity<List<UserDTO>> findPageable(@RequestBody UserQuery filter) throws InvalidRequestException;
+
+    @Secured({Login.ROLE_ADMIN})
+    @GetMapping(EXPORT_PATH)
+    ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) throws InvalidRequestException;
 
     @GetMapping(GET_BY_ID_PATH)
     ResponseEntity<UserDTO> getById(@PathVariable(value = "id") Long userId) throws NotFoundException;
@@ -28,15 +34,23 @@ public interface UserResource {
     @GetMapping(GET_BY_NAME_PATH)
     ResponseEntity<List<UserDTO>> getByName(@PathVariable(value = "name") String nameOfUser);
 
+    @Secured({Login.ROLE_ADMIN})
     @PostMapping()
     ResponseEntity<UserDTO> create(@RequestBody UserDTO user) throws InvalidRequestException;
 
+    @Secured({Login.ROLE_ADMIN})
+    @PostMapping(BULK_PATH)
+    ResponseEntity<List<BulkUserResult>> bulkCreate(@RequestBody List<UserDTO> users) throws InvalidRequestException;
+
+    @Secured({Login.ROLE_ADMIN})
     @PutMapping(UPDATE_PATH)
     ResponseEntity<UserDTO> update(@PathVariable(value = "id") Long userId, @RequestBody UserDTO userDTO) throws InvalidRequestException, NotFoundException;
 
+    @Secured({Login.ROLE_ADMIN})
     @DeleteMapping(DELETE_PATH)
     Map<String, Long> delete(@PathVariable(value = "id") Long userId) throws NotFoundException;
 
+    @Secured({Login.ROLE_CLIENT, Login.ROLE_ADMIN})
     @PostMapping(UPDATE_USER_PATH)
     ResponseEntity<String> changeUserPassword(@RequestBody UpdatePassword updatePassword) throws InvalidRequestException;
 
@@ -14,7 +14,12 @@ public class ConstantsUtil {
     public static final int MAX_SIZE_CNPJ = 14;
     public static final int MAX_SIZE_CPF = 11;
 
+    public static final int DEFAULT_ROWS_PER_PAGE = 20;
+    public static final int FETCH_BATCH_SIZE = 100;
+    public static final String EXPORT_FETCH_SIZE = "500";
+
     public static final String AUTH_BASE_API = "/com/paulorodrigues/authentication/api";
+    public static final String AUTHENTICATIONS_V1_BASE_API = "/api/v1/authentications";
     public static final String ADDRESSES_V1_BASE_API = AUTH_BASE_API + "/v1/addresses";
 
     public static final String DELETE_PATH = "/{id}";
@@ -26,13 +31,23 @@ public class ConstantsUtil {
     public static final String GET_LOGRADOUROS = "/logradouros";
 
     public static final String GET_CITIES_PATH = "/{country}/{state}/cities";
+    public static final String AUTOCOMPLETE_CITIES_PATH = "/cities/autocomplete";
+    public static final String FIND_BY_CEP_PATH = "/cep/{cep}";
+    public static final String EXPORT_PATH = "/export";
+    public static final String IMPORT_GEO_DATA_PATH = "/import";
+    public static final String RELOAD_CEP_PATH = "/cep/reload";
+    public static final String NEARBY_PATH = "/nearby";
+    public static final String SEARCH_PATH = "/search";
+    public static final String WITHIN_BOX_PATH = "/within";
     public static final String GET_STATES_PATH = "/{country}/states";
     public static final String GET_COUNTRIES_PATH = "/countries";
     public static final String PEOPLE_V1_BASE_API = AUTH_BASE_API + "/v1/people";
     public static final String UPDATE_PATH = "/{id}";
     public static final String USERS_V1_BASE_API = AUTH_BASE_API + "/v1/users";
-    public static final String GET_BY_NAME_PATH = "";
-    public static final String GET_BY_ID_PATH = "";
-    public static final String UPDATE_USER_PATH = "";
-    public static final String GET_ROLES_PATH = "";
+    public static final String GET_BY_NAME_PATH = "/fetch/{name}";
+    public static final String GET_BY_ID_PATH = "/{id}";
+    public static final String UPDATE_USER_PATH = "/password";
+    public static final String GET_ROLES_PATH = "/roles";
+    public static final String TOKEN_PATH = "/token";
+    public static final String BULK_PATH = "/bulk";
 }
@@ -7,13 +7,18 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.text.Normalizer;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 public class FormatUtil {
 
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
     public static String getUsernameLogged() {
         String userName = "";
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -56,6 +61,41 @@ public class FormatUtil {
         return str == null || str.trim().isEmpty();
     }
 
+    /**
+     * Lowercase, accent-free form used as a search key, e.g. "São Paulo" becomes "sao paulo".
+     */
+    public static String foldForSearch(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * "lat,lon" (also separated by ';' or blanks) as {latitude, longitude} in degrees, null when
+     * it is not two numbers inside the valid ranges.
+     */
+    public static double[] parseCoordinates(String value) {
+        if (isEmpty(value)) {
+            return null;
+        }
+        String[] parts = value.trim().split("\\s*[,;]\\s*|\\s+");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            double latitude = Double.parseDouble(parts[0]);
+            double longitude = Double.parseDouble(parts[1]);
+            if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+                return null;
+            }
+            return new double[]{latitude, longitude};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     public static Pageable buildPageable(PageableQuery pageableQuery){
         return PageRequest.of(pageableQuery.getCurrentPage() > 0 ? pageableQuery.getCurrentPage() - 1 : 0, pageableQuery.getRowsPerPage(), Sort.by(pageableQuery.getSortColumn()));
     }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.commons.util;
+
+import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.logging.log4j.util.Strings;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Seek pagination over an entity: rather than skipping {@code offset} rows, each page starts
+ * right after the (sort value, id) pair carried by a {@link PageCursor}, so every page costs
+ * the same as the first one given an index on those columns.
+ * <p>
+ * Only whitelisted, non-null sort columns are accepted: a null sort value would make rows fall
+ * out of the tuple comparison. The id breaks ties, so equal sort values are never skipped.
+ *
+ * @author paulo.rodrigues
+ */
+public final class KeysetQuery {
+
+    public static final String ID_COLUMN = "id";
+
+    private KeysetQuery() {
+    }
+
+    /**
+     * Runs {@code SELECT alias FROM entity alias WHERE filter} one page after {@code query.cursor};
+     * an empty cursor reads the first page. {@code sortColumns} maps the accepted sort columns to
+     * their Java types.
+     */
+    public static <T> Slice<T> fetch(EntityManager entityManager, Class<T> type, String alias, String filter,
+                                     Map<String, Object> parameters, Map<String, Class<?>> sortColumns,
+                                     PageableQuery query) throws InvalidRequestException {
+        return fetch(entityManager, type, alias, null, filter, parameters, sortColumns, query);
+    }
+
+    /**
+     * Same as above, with {@code fetches} ({@code JOIN FETCH} clauses on {@code alias}) placed right
+     * after the FROM clause, so the associations of every row come back in the page's statement.
+     */
+    public static <T> Slice<T> fetch(EntityManager entityManager, Class<T> type, String alias, String fetches, String filter,
+                                     Map<String, Object> parameters, Map<String, Class<?>> sortColumns,
+                                     PageableQuery query) throws InvalidRequestException {
+        PageCursor after = Strings.isBlank(query.getCursor()) ? null : PageCursor.decode(query.getCursor());
+        String sortColumn = Strings.isNotBlank(query.getSortColumn()) ? query.getSortColumn().trim()
+                : Objects.nonNull(after) ? after.getSortColumn() : ID_COLUMN;
+        boolean ascending = Strings.isNotBlank(query.getSort()) ? !"desc".equalsIgnoreCase(query.getSort().trim())
+                : Objects.isNull(after) || after.isAscending();
+        Class<?> sortType = sortColumns.get(sortColumn);
+        if (Objects.isNull(sortType) || (Objects.nonNull(after)
+                && (!after.getSortColumn().equals(sortColumn) || after.isAscending() != ascending))) {
+            throw new InvalidRequestException(MessageUtil.getMessage("PAGE_CURSOR_INVALID"));
+        }
+        boolean byId = ID_COLUMN.equals(sortColumn);
+        String column = alias + "." + sortColumn;
+        String id = alias + "." + ID_COLUMN;
+        String direction = ascending ? "ASC" : "DESC";
+        String comparison = ascending ? ">" : "<";
+
+        StringBuilder hql = new StringBuilder("SELECT ").append(alias).append(" AS item, ").append(column).append(" AS sortValue")
+                .append(" FROM ").append(type.getSimpleName()).append(' ').append(alias)
+                .append(Strings.isBlank(fetches) ? "" : " " + fetches.trim())
+                .append(" WHERE (").append(Strings.isBlank(filter) ? "1 = 1" : filter).append(')');
+        if (Objects.nonNull(after)) {
+            hql.append(byId ? " AND " + id + " " + comparison + " :keysetId"
+                    : " AND (" + column + ", " + id + ") " + comparison + " (:keysetValue, :keysetId)");
+        }
+        hql.append(" ORDER BY ").append(byId ? "" : column + " " + direction + ", ").append(id).append(' ').append(direction);
+
+        int rows = query.getRowsPerPage() > 0 ? query.getRowsPerPage() : ConstantsUtil.DEFAULT_ROWS_PER_PAGE;
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(hql.toString(), Tuple.class)
+                .setMaxResults(rows + 1);
+        parameters.forEach(typedQuery::setParameter);
+        if (Objects.nonNull(after)) {
+            typedQuery.setParameter("keysetId", after.getId());
+            if (!byId) {
+                typedQuery.setParameter("keysetValue", parse(after.getValue(), sortType));
+            }
+        }
+
+        List<Tuple> tuples = typedQuery.getResultList();
+        List<T> content = new ArrayList<>(Math.min(rows, tuples.size()));
+        for (int i = 0; i < tuples.size() && i < rows; i++) {
+            content.add(type.cast(tuples.get(i).get("item")));
+        }
+        String nextCursor = null;
+        if (tuples.size() > rows) {
+            // Read one extra row only to learn whether another page exists
+            Tuple last = tuples.get(rows - 1);
+            Object lastValue = last.get("sortValue");
+            long lastId = ((Number) entityManager.getEntityManagerFactory().getPersistenceUnitUtil()
+                    .getIdentifier(last.get("item"))).longValue();
+            nextCursor = new PageCursor(sortColumn, ascending, lastId, String.valueOf(lastValue)).encode();
+        }
+        return new Slice<>(content, nextCursor);
+    }
+
+    private static Object parse(String value, Class<?> type) throws InvalidRequestException {
+        try {
+            if (Long.class.equals(type)) {
+                return Long.valueOf(value);
+            }
+            if (LocalDate.class.equals(type)) {
+                return LocalDate.parse(value);
+            }
+            return value;
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException(MessageUtil.getMessage("PAGE_CURSOR_INVALID"));
+        }
+    }
+
+    /**
+     * One keyset page; {@code nextCursor} is null on the last page.
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class Slice<T> {
+
+        private final List<T> content;
+        private final String nextCursor;
+    }
+}
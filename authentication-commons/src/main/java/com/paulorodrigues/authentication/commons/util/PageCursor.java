@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.commons.util;
+
+import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token of a keyset page: the sort column and direction it was read with plus the
+ * sort value and id of the last row returned. Clients only pass it back, so the encoding is
+ * free to change.
+ *
+ * @author paulo.rodrigues
+ */
+@AllArgsConstructor
+@Getter
+public class PageCursor {
+
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "\u001f";
+
+    private final String sortColumn;
+    private final boolean ascending;
+    private final long id;
+    private final String value;
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, VERSION, sortColumn, ascending ? "asc" : "desc", String.valueOf(id), value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) throws InvalidRequestException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new InvalidRequestException(MessageUtil.getMessage("PAGE_CURSOR_INVALID"));
+            }
+            return new PageCursor(parts[1], "asc".equals(parts[2]), Long.parseLong(parts[3]), parts[4]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(MessageUtil.getMessage("PAGE_CURSOR_INVALID"));
+        }
+    }
+}
@@ -17,6 +17,7 @@
  */
 package com.paulorodrigues.authentication.commons.util;
 
+import com.paulorodrigues.authentication.commons.enums.CountMode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -40,6 +41,12 @@ public class PageableQuery {
     private String sortColumn;
     private String sort;
     private int offset;
+    /**
+     * Continuation token from the previous page's {@code nextCursor}; any non-null value, even an
+     * empty one for the first page, switches the listing to keyset pagination.
+     */
+    private String cursor;
+    private CountMode countMode;
     
     private Long id;
     private String name;
@@ -60,6 +67,12 @@ public class PageableQuery {
             sb.append("sort='").append(getSort()).append('\'').append(", ");
         }
         sb.append("offset=").append(getOffset()).append(", ");
+        if (getCursor() != null) {
+            sb.append("cursor='").append(getCursor()).append('\'').append(", ");
+        }
+        if (getCountMode() != null) {
+            sb.append("countMode=").append(getCountMode()).append(", ");
+        }
         if (getId() != null) {
             sb.append("id=").append(getId()).append(", ");
         }
@@ -5,15 +5,22 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.util.Map;
 import java.util.TimeZone;
 
 @SpringBootApplication
 @EnableJpaRepositories(enableDefaultTransactions=false)
 @EnableAutoConfiguration
+@EnableScheduling
 public class AuthenticationServiceApplication {
 	public static void main(String[] args) {
-		SpringApplication.run(AuthenticationServiceApplication.class, args);
+		SpringApplication application = new SpringApplication(AuthenticationServiceApplication.class);
+		// Behind the load balancer, getRemoteAddr() is the client from X-Forwarded-For sent by a
+		// trusted internal proxy, not the proxy itself; the login throttle keys on it
+		application.setDefaultProperties(Map.of("server.forward-headers-strategy", "native"));
+		application.run(args);
 	}
 
 	@PostConstruct
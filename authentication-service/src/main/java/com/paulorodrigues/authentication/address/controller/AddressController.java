@@ -20,22 +20,32 @@ package com.paulorodrigues.authentication.address.controller;
 
 
 import com.paulorodrigues.authentication.address.service.AddressService;
+import com.paulorodrigues.authentication.address.service.CepFileBuilder;
+import com.paulorodrigues.authentication.address.service.GeoDataImporter;
+import com.paulorodrigues.authentication.commons.enums.ExportFormat;
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.exception.NotFoundException;
 import com.paulorodrigues.authentication.commons.model.AddressDTO;
+import com.paulorodrigues.authentication.commons.model.AddressResponse;
+import com.paulorodrigues.authentication.commons.model.CepReloadResult;
 import com.paulorodrigues.authentication.commons.model.CityDTO;
 import com.paulorodrigues.authentication.commons.model.CountryDTO;
+import com.paulorodrigues.authentication.commons.model.GeoImportResult;
 import com.paulorodrigues.authentication.commons.model.StateDTO;
 import com.paulorodrigues.authentication.commons.resource.AddressResource;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +63,12 @@ public class AddressController implements AddressResource {
     @Autowired
     private AddressService addressService;
 
+    @Autowired
+    private GeoDataImporter geoDataImporter;
+
+    @Autowired
+    private CepFileBuilder cepFileBuilder;
+
 
     public ResponseEntity<AddressDTO> getById(@PathVariable(value = "id") Long addressId) throws NotFoundException {
         try {
@@ -74,6 +90,67 @@ public class AddressController implements AddressResource {
         }
     }
 
+    public ResponseEntity<AddressDTO> getByCep(@PathVariable(value = "cep") String cep) throws NotFoundException {
+        try {
+            return ResponseEntity.ok().body(addressService.findByCep(cep));
+        } catch (Exception e) {
+            log.error("Exception on getByCep cep={}, message={}", cep, e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
+    public ResponseEntity<List<AddressDTO>> getNearby(@RequestParam(value = "latitude") double latitude,
+                                                      @RequestParam(value = "longitude") double longitude,
+                                                      @RequestParam(value = "radiusKm") double radiusKm,
+                                                      @RequestParam(value = "limit", defaultValue = "100") int limit) throws InvalidRequestException {
+        try {
+            return ResponseEntity.ok().body(addressService.findNearby(latitude, longitude, radiusKm, limit));
+        } catch (Exception e) {
+            log.error("Exception on getNearby latitude={}, longitude={}, radiusKm={}, message={}", latitude, longitude, radiusKm, e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
+    public ResponseEntity<List<AddressDTO>> getWithin(@RequestParam(value = "minLatitude") double minLatitude,
+                                                      @RequestParam(value = "minLongitude") double minLongitude,
+                                                      @RequestParam(value = "maxLatitude") double maxLatitude,
+                                                      @RequestParam(value = "maxLongitude") double maxLongitude,
+                                                      @RequestParam(value = "limit", defaultValue = "100") int limit) throws InvalidRequestException {
+        try {
+            return ResponseEntity.ok().body(addressService.findWithin(minLatitude, minLongitude, maxLatitude, maxLongitude, limit));
+        } catch (Exception e) {
+            log.error("Exception on getWithin minLatitude={}, minLongitude={}, maxLatitude={}, maxLongitude={}, message={}",
+                    minLatitude, minLongitude, maxLatitude, maxLongitude, e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
+    public ResponseEntity<AddressResponse> search(@RequestParam(value = "term") String term,
+                                                  @RequestParam(value = "currentPage", defaultValue = "1") int currentPage,
+                                                  @RequestParam(value = "rowsPerPage", defaultValue = "20") int rowsPerPage) {
+        try {
+            PageRequest pageRequest = PageRequest.of(Math.max(currentPage, 1) - 1, Math.max(rowsPerPage, 1));
+            return ResponseEntity.ok().body(AddressResponse.builder().addresses(addressService.search(term, pageRequest)).build());
+        } catch (Exception e) {
+            log.error("Exception on search term={}, message={}", term, e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) throws InvalidRequestException {
+        try {
+            return addressService.export(ExportFormat.of(format));
+        } catch (Exception e) {
+            log.error("Exception on export format={}, message={}", format, e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
     public ResponseEntity<List<AddressDTO>> getByName(@PathVariable(value = "name") String addressName) {
         try {
             return ResponseEntity.ok().body(addressService.findByName(addressName));
@@ -137,6 +214,39 @@ public class AddressController implements AddressResource {
         }
     }
     
+    public ResponseEntity<List<CityDTO>> autocompleteCities(@RequestParam(value = "prefix") String prefix,
+                                                            @RequestParam(value = "stateId", required = false) Long stateId,
+                                                            @RequestParam(value = "countryId", required = false) Long countryId,
+                                                            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok().body(addressService.autocompleteCities(prefix, stateId, countryId, limit));
+        } catch (Exception e) {
+            log.error("Exception on autocompleteCities prefix={}, stateId={}, countryId={}, message={}", prefix, stateId, countryId, e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
+    public ResponseEntity<GeoImportResult> importGeoData() throws InvalidRequestException, IOException {
+        try {
+            return ResponseEntity.ok().body(geoDataImporter.importConfiguredSource());
+        } catch (Exception e) {
+            log.error("Exception on importGeoData message={}", e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
+    public ResponseEntity<CepReloadResult> reloadCepIndex() throws IOException {
+        try {
+            return ResponseEntity.ok().body(cepFileBuilder.reload());
+        } catch (Exception e) {
+            log.error("Exception on reloadCepIndex message={}", e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
     public ResponseEntity<List<StateDTO>> getAllStates(@PathVariable(value = "country") Long countryId) {
         try {
             return ResponseEntity.ok().body(addressService.getAllStates(countryId));
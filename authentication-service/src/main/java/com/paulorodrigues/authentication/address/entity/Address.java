@@ -18,6 +18,7 @@
 package com.paulorodrigues.authentication.address.entity;
 
 
+import com.paulorodrigues.authentication.address.service.AddressSpatialListener;
 import com.paulorodrigues.authentication.commons.enums.TipoLogradouro;
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.model.AddressDTO;
@@ -28,6 +29,7 @@ import com.paulorodrigues.authentication.commons.util.MessageUtil;
 import groovyjarjarantlr4.v4.runtime.misc.NotNull;
 import io.micrometer.common.util.StringUtils;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.*;
 
 import java.io.Serializable;
@@ -44,6 +46,8 @@ import static com.paulorodrigues.authentication.commons.util.FormatUtil.removeLa
  * @author paulo.rodrigues
  */
 @Entity
+@EntityListeners(AddressSpatialListener.class)
+@BatchSize(size = ConstantsUtil.FETCH_BATCH_SIZE)
 @Table(indexes = {
     @Index(name = "idx_name_address", columnList = "name"),})
 @NoArgsConstructor
@@ -90,7 +94,17 @@ public class Address implements Serializable {
     @Column(length = ConstantsUtil.MAX_SIZE_SHORT_TEXT)
     private String referentialPoint;
 
-    @Transient
+    /**
+     * {@link #coordination} parsed on every write, null when it is not a valid "lat,lon" pair.
+     */
+    private Double latitude;
+    private Double longitude;
+
+    /**
+     * {@link #formatAddress()} materialized on every write. Renaming a city, state or country
+     * clears it for the affected rows and {@code AddressFormatService} fills it in again.
+     */
+    @Column(length = ConstantsUtil.MAX_SIZE_LONG_TEXT)
     private String fmtAddress;
 
     private LocalDate createAt;
@@ -98,15 +112,44 @@ public class Address implements Serializable {
     private LocalDate updateAt;
     private String updateBy;
 
+    @PrePersist
+    @PreUpdate
+    public void materializeDerivedColumns() {
+        fmtAddress = formatAddress();
+        double[] coordinates = FormatUtil.parseCoordinates(coordination);
+        latitude = Objects.isNull(coordinates) ? null : coordinates[0];
+        longitude = Objects.isNull(coordinates) ? null : coordinates[1];
+    }
+
     public String formatAddress() {
-        String formattedAddress = "";
+        String cityName = null;
+        String stateName = null;
+        String countryName = null;
         if (Objects.nonNull(city)) {
-            formattedAddress = city.getName();
+            cityName = city.getName();
             if (Objects.nonNull(city.getState())) {
-                formattedAddress = formattedAddress + " - " + city.getState().getName();
-
+                stateName = city.getState().getName();
                 if (Objects.nonNull(city.getState().getCountry())) {
-                    formattedAddress = formattedAddress + " - " + city.getState().getCountry().getName();
+                    countryName = city.getState().getCountry().getName();
+                }
+            }
+        }
+        return formatAddress(logradouro, name, number, Objects.nonNull(city), cityName, stateName, countryName);
+    }
+
+    /**
+     * Same text as {@link #formatAddress()} from plain values, for callers that did not load the entity graph.
+     */
+    public static String formatAddress(TipoLogradouro logradouro, String name, String number,
+                                       boolean hasCity, String cityName, String stateName, String countryName) {
+        String formattedAddress = "";
+        if (hasCity) {
+            formattedAddress = cityName;
+            if (Objects.nonNull(stateName)) {
+                formattedAddress = formattedAddress + " - " + stateName;
+
+                if (Objects.nonNull(countryName)) {
+                    formattedAddress = formattedAddress + " - " + countryName;
                 }
             }
         }
@@ -160,8 +203,10 @@ public class Address implements Serializable {
                 .zipCode(zipCode)
                 .neighborhood(neighborhood)
                 .coordination(coordination)
+                .latitude(latitude)
+                .longitude(longitude)
                 .referentialPoint(referentialPoint)
-                .fmtAddress(formatAddress())
+                .fmtAddress(Objects.nonNull(fmtAddress) ? fmtAddress : formatAddress())
                 .build();
     }
 
@@ -18,9 +18,16 @@
 package com.paulorodrigues.authentication.address.entity;
 
 
+import com.paulorodrigues.authentication.address.service.AddressFormatListener;
+import com.paulorodrigues.authentication.config.SecondLevelCacheConfiguration;
+import com.paulorodrigues.authentication.address.service.CityIndexListener;
 import com.paulorodrigues.authentication.commons.model.CityDTO;
+import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
 import groovyjarjarantlr4.v4.runtime.misc.NotNull;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 
 import java.io.Serializable;
@@ -33,8 +40,13 @@ import static com.paulorodrigues.authentication.commons.util.FormatUtil.removeLa
  * @author paulo.rodrigues
  */
 @Entity
+@Cacheable
+@BatchSize(size = ConstantsUtil.FETCH_BATCH_SIZE)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfiguration.CITY_REGION)
+@EntityListeners({CityIndexListener.class, AddressFormatListener.class})
 @Table(indexes = {
     @Index(name = "idx_name_city", columnList = "name"),
+    @Index(name = "idx_ibge_code_city", columnList = "ibgeCode", unique = true),
 })
 @NoArgsConstructor
 @AllArgsConstructor
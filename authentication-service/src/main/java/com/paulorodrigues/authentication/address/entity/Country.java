@@ -17,9 +17,15 @@
  */
 package com.paulorodrigues.authentication.address.entity;
 
+import com.paulorodrigues.authentication.address.service.AddressFormatListener;
+import com.paulorodrigues.authentication.config.SecondLevelCacheConfiguration;
 import com.paulorodrigues.authentication.commons.model.CountryDTO;
+import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
 import groovyjarjarantlr4.v4.runtime.misc.NotNull;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 
 import java.io.Serializable;
@@ -32,6 +38,10 @@ import static com.paulorodrigues.authentication.commons.util.FormatUtil.removeLa
  * @author paulo.rodrigues
  */
 @Entity
+@Cacheable
+@BatchSize(size = ConstantsUtil.FETCH_BATCH_SIZE)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfiguration.COUNTRY_REGION)
+@EntityListeners(AddressFormatListener.class)
 @Table(indexes = {
     @Index(name = "idx_name_country", columnList = "name"),
 })
@@ -17,9 +17,15 @@
  */
 package com.paulorodrigues.authentication.address.entity;
 
+import com.paulorodrigues.authentication.address.service.AddressFormatListener;
+import com.paulorodrigues.authentication.config.SecondLevelCacheConfiguration;
 import com.paulorodrigues.authentication.commons.model.StateDTO;
+import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
 import groovyjarjarantlr4.v4.runtime.misc.NotNull;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -36,6 +42,10 @@ import static com.paulorodrigues.authentication.util.FormatUtil.removeLastComma;
  * @author paulo.rodrigues
  */
 @Entity
+@Cacheable
+@BatchSize(size = ConstantsUtil.FETCH_BATCH_SIZE)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfiguration.STATE_REGION)
+@EntityListeners(AddressFormatListener.class)
 @Table(indexes = {
     @Index(name = "idx_name_state", columnList = "name"),
 })
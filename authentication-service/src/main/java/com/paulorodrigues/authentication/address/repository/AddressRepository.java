@@ -20,12 +20,22 @@ package com.paulorodrigues.authentication.address.repository;
 
 
 import com.paulorodrigues.authentication.address.entity.Address;
+import com.paulorodrigues.authentication.commons.enums.TipoLogradouro;
+import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  *
@@ -39,4 +49,86 @@ public interface AddressRepository extends JpaRepository<Address, Long> {
             + " WHERE (:name IS NULL OR :name = '' OR LOWER(c.name) LIKE LOWER(CONCAT('%',:name,'%'))) "
             + "")
     public List<Address> findByName (@Param("name") String name);
+
+    /**
+     * Address columns plus the city, state and country names needed by the DTO, joined in one statement.
+     */
+    String SUMMARY_SELECT = "SELECT a.id AS id, a.logradouro AS logradouro, a.name AS name, a.number AS number, "
+            + " a.cep AS cep, a.zipCode AS zipCode, a.neighborhood AS neighborhood, a.coordination AS coordination, "
+            + " a.latitude AS latitude, a.longitude AS longitude,"
+            + " a.referentialPoint AS referentialPoint, a.fmtAddress AS fmtAddress, c.id AS cityId, c.name AS cityName, s.name AS stateName, co.name AS countryName "
+            + " FROM Address a LEFT JOIN a.city c LEFT JOIN c.state s LEFT JOIN s.country co ";
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ConstantsUtil.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query(SUMMARY_SELECT + " ORDER BY a.id")
+    public Stream<AddressSummary> streamSummariesForExport();
+
+    @Query(SUMMARY_SELECT + " WHERE a.id = :id")
+    public Optional<AddressSummary> findSummaryById(@Param("id") long id);
+
+    @Query(SUMMARY_SELECT
+            + " WHERE (:name IS NULL OR :name = '' OR LOWER(a.name) LIKE LOWER(CONCAT('%',:name,'%'))) ")
+    public List<AddressSummary> findSummariesByName(@Param("name") String name);
+
+    /**
+     * Next rows without a materialized formatted address, in id order after {@code afterId}.
+     */
+    @Query(SUMMARY_SELECT + " WHERE a.fmtAddress IS NULL AND a.id > :afterId ORDER BY a.id")
+    public List<AddressSummary> findUnformatted(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Expression covered by the trigram index {@code idx_address_search_trgm} (migration V2).
+     */
+    String SEARCH_TEXT = "address_search_text(a.name, a.neighborhood, a.fmt_address)";
+
+    /**
+     * Both predicates are served by the trigram index; {@code pattern} is the term with LIKE wildcards escaped.
+     */
+    String SEARCH_PREDICATE = SEARCH_TEXT + " LIKE '%' || :pattern || '%' ESCAPE '\\' OR :term <% " + SEARCH_TEXT;
+
+    String SEARCH_IDS = "SELECT a.id FROM address a WHERE " + SEARCH_PREDICATE
+            + " ORDER BY word_similarity(:term, " + SEARCH_TEXT + ") DESC, a.id";
+
+    /**
+     * Ids of addresses containing the folded term or a word close to it, best match first.
+     */
+    @Query(value = SEARCH_IDS,
+            countQuery = "SELECT count(*) FROM address a WHERE " + SEARCH_PREDICATE,
+            nativeQuery = true)
+    public Page<Long> searchIds(@Param("term") String term, @Param("pattern") String pattern, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE a.id IN :ids")
+    public List<AddressSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id AS id, a.coordination AS coordination, a.latitude AS latitude, a.longitude AS longitude "
+            + " FROM Address a WHERE a.latitude IS NOT NULL OR a.coordination IS NOT NULL")
+    public List<AddressPoint> findAllPoints();
+
+    interface AddressPoint {
+        long getId();
+        String getCoordination();
+        Double getLatitude();
+        Double getLongitude();
+    }
+
+    interface AddressSummary {
+        long getId();
+        TipoLogradouro getLogradouro();
+        String getName();
+        String getNumber();
+        String getCep();
+        String getZipCode();
+        String getNeighborhood();
+        String getCoordination();
+        Double getLatitude();
+        Double getLongitude();
+        String getReferentialPoint();
+        String getFmtAddress();
+        Long getCityId();
+        String getCityName();
+        String getStateName();
+        String getCountryName();
+    }
 }
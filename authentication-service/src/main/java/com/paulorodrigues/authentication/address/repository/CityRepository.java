@@ -22,7 +22,10 @@ package com.paulorodrigues.authentication.address.repository;
 import com.paulorodrigues.authentication.address.entity.City;
 import com.paulorodrigues.authentication.address.entity.Country;
 import com.paulorodrigues.authentication.address.entity.StateCountry;
+import com.paulorodrigues.authentication.commons.model.CityDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -40,4 +43,28 @@ public interface CityRepository extends JpaRepository<City, Long> {
 
     public List<City> findByCountryAndState(Country country, StateCountry state);
 
+    /**
+     * Same as {@link #findByCountryAndState} in one statement, without loading state and country.
+     */
+    @Query("SELECT new com.paulorodrigues.authentication.commons.model.CityDTO(c.id, c.name) "
+            + " FROM City c "
+            + " WHERE c.country.id = :countryId AND c.state.id = :stateId "
+            + " ORDER BY c.name")
+    public List<CityDTO> findDTOByCountryAndState(@Param("countryId") long countryId, @Param("stateId") long stateId);
+
+    /**
+     * Every city with its foreign keys only; state and country are not joined.
+     */
+    @Query("SELECT c.id AS id, c.name AS name, c.state.id AS stateId, c.country.id AS countryId, c.ibgeCode AS ibgeCode "
+            + " FROM City c")
+    public List<CitySummary> findAllSummaries();
+
+    interface CitySummary {
+        long getId();
+        String getName();
+        Long getStateId();
+        Long getCountryId();
+        String getIbgeCode();
+    }
+
 }
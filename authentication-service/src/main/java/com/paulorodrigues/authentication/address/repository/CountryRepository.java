@@ -19,9 +19,13 @@ package com.paulorodrigues.authentication.address.repository;
 
 
 import com.paulorodrigues.authentication.address.entity.Country;
+import com.paulorodrigues.authentication.commons.model.CountryDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  *
  * @author paulo.rodrigues
@@ -33,4 +37,7 @@ public interface CountryRepository extends JpaRepository<Country, Long> {
 
     public Country getById(long id);
 
+    @Query("SELECT new com.paulorodrigues.authentication.commons.model.CountryDTO(c.id, c.name) FROM Country c")
+    public List<CountryDTO> findAllDTO();
+
 }
@@ -22,6 +22,7 @@ package com.paulorodrigues.authentication.address.repository;
 import com.paulorodrigues.authentication.address.entity.Country;
 import com.paulorodrigues.authentication.address.entity.StateCountry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -35,5 +36,19 @@ public interface StateCountryRepository extends JpaRepository<StateCountry, Long
     
     
     public List<StateCountry> findByCountry(Country country);
+
+    /**
+     * Every state with its country's id and name, joined in the same statement.
+     */
+    @Query("SELECT s.id AS id, s.name AS name, c.id AS countryId, c.name AS countryName "
+            + " FROM StateCountry s LEFT JOIN s.country c")
+    public List<StateSummary> findAllSummaries();
+
+    interface StateSummary {
+        long getId();
+        String getName();
+        Long getCountryId();
+        String getCountryName();
+    }
     
 }
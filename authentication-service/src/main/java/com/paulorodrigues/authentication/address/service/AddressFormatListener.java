@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import com.paulorodrigues.authentication.address.entity.City;
+import com.paulorodrigues.authentication.address.entity.Country;
+import com.paulorodrigues.authentication.address.entity.StateCountry;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link City}, {@link StateCountry} and {@link Country}: an update may rename
+ * a part of the formatted address, so the addresses below it are cleared for the backfill
+ * once the transaction has committed.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+public class AddressFormatListener {
+
+    @Autowired
+    @Lazy
+    private AddressFormatService addressFormatService;
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        if (entity instanceof City) {
+            long id = ((City) entity).getId();
+            AfterCommit.run(() -> addressFormatService.invalidateCity(id));
+        } else if (entity instanceof StateCountry) {
+            long id = ((StateCountry) entity).getId();
+            AfterCommit.run(() -> addressFormatService.invalidateState(id));
+        } else if (entity instanceof Country) {
+            long id = ((Country) entity).getId();
+            AfterCommit.run(() -> addressFormatService.invalidateCountry(id));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import com.paulorodrigues.authentication.address.entity.Address;
+import com.paulorodrigues.authentication.address.repository.AddressRepository;
+import com.paulorodrigues.authentication.address.repository.AddressRepository.AddressSummary;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps {@code address.fmt_address} filled. Renames of a city, state or country clear the column
+ * for the addresses below it; the backfill then recomputes every cleared row in id-ordered
+ * batches. It runs on a schedule, which also covers rows written before the column existed,
+ * and right after an invalidation on a single background thread. Each row is written only if
+ * its city, state and country names still match the ones it was formatted with.
+ *
+ * @author paulo.rodrigues
+ */
+@Service
+@Log4j2
+public class AddressFormatService {
+
+    private static final String CLEAR_BY_CITY = "UPDATE address SET fmt_address = NULL WHERE city_id = ?";
+    private static final String CLEAR_BY_STATE = "UPDATE address SET fmt_address = NULL "
+            + "WHERE city_id IN (SELECT id FROM city WHERE state_id = ?)";
+    private static final String CLEAR_BY_COUNTRY = "UPDATE address SET fmt_address = NULL "
+            + "WHERE city_id IN (SELECT c.id FROM city c JOIN state_country s ON s.id = c.state_id WHERE s.country_id = ?)";
+    /**
+     * Writes only while the place names the text was computed from are still current: a rename
+     * committed after the batch was read leaves the row NULL for the backfill it queues.
+     */
+    private static final String SET_FORMATTED = "UPDATE address a SET fmt_address = ? WHERE a.id = ? AND a.fmt_address IS NULL "
+            + "AND (a.city_id IS NULL OR EXISTS (SELECT 1 FROM city c "
+            + "LEFT JOIN state_country s ON s.id = c.state_id LEFT JOIN country co ON co.id = s.country_id "
+            + "WHERE c.id = a.city_id AND c.name IS NOT DISTINCT FROM ? AND s.name IS NOT DISTINCT FROM ? "
+            + "AND co.name IS NOT DISTINCT FROM ?))";
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${auth.address-format.batch-size:500}")
+    private int batchSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "address-format-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean backfillQueued = new AtomicBoolean();
+
+    public void invalidateCity(long cityId) {
+        invalidate(CLEAR_BY_CITY, cityId);
+    }
+
+    public void invalidateState(long stateId) {
+        invalidate(CLEAR_BY_STATE, stateId);
+    }
+
+    public void invalidateCountry(long countryId) {
+        invalidate(CLEAR_BY_COUNTRY, countryId);
+    }
+
+    private void invalidate(String sql, long id) {
+        int cleared = jdbcTemplate.update(sql, id);
+        if (cleared > 0) {
+            log.info("Formatted addresses cleared id={}, addresses={}", id, cleared);
+            requestBackfill();
+        }
+    }
+
+    /**
+     * Queues a backfill unless one is already waiting; concurrent requests collapse into one run.
+     */
+    public void requestBackfill() {
+        if (backfillQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                backfillQueued.set(false);
+                backfill();
+            });
+        }
+    }
+
+    @Scheduled(initialDelayString = "${auth.address-format.backfill-interval-ms:600000}",
+            fixedDelayString = "${auth.address-format.backfill-interval-ms:600000}")
+    public synchronized int backfill() {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int total = 0;
+        try {
+            List<AddressSummary> batch;
+            do {
+                batch = addressRepository.findUnformatted(afterId, PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                jdbcTemplate.batchUpdate(SET_FORMATTED, batch, batch.size(), (ps, summary) -> {
+                    ps.setString(1, format(summary));
+                    ps.setLong(2, summary.getId());
+                    ps.setString(3, summary.getCityName());
+                    ps.setString(4, summary.getStateName());
+                    ps.setString(5, summary.getCountryName());
+                });
+                afterId = batch.get(batch.size() - 1).getId();
+                total += batch.size();
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Exception on address format backfill afterId={}, message={}", afterId, e.getMessage());
+        }
+        if (total > 0) {
+            log.info("Formatted addresses backfilled addresses={}, elapsedMillis={}", total, System.currentTimeMillis() - start);
+        }
+        return total;
+    }
+
+    static String format(AddressSummary summary) {
+        return Address.formatAddress(summary.getLogradouro(), summary.getName(), summary.getNumber(),
+                Objects.nonNull(summary.getCityId()), summary.getCityName(), summary.getStateName(), summary.getCountryName());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
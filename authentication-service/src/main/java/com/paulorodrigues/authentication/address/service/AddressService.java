@@ -21,11 +21,11 @@ package com.paulorodrigues.authentication.address.service;
 import com.paulorodrigues.authentication.address.entity.Address;
 import com.paulorodrigues.authentication.address.entity.City;
 import com.paulorodrigues.authentication.address.entity.Country;
-import com.paulorodrigues.authentication.address.entity.StateCountry;
 import com.paulorodrigues.authentication.address.repository.AddressRepository;
 import com.paulorodrigues.authentication.address.repository.CityRepository;
 import com.paulorodrigues.authentication.address.repository.CountryRepository;
 import com.paulorodrigues.authentication.address.repository.StateCountryRepository;
+import com.paulorodrigues.authentication.commons.enums.ExportFormat;
 import com.paulorodrigues.authentication.commons.enums.TipoLogradouro;
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.exception.NotFoundException;
@@ -34,16 +34,28 @@ import com.paulorodrigues.authentication.commons.model.CityDTO;
 import com.paulorodrigues.authentication.commons.model.CountryDTO;
 import com.paulorodrigues.authentication.commons.model.StateDTO;
 import com.paulorodrigues.authentication.commons.util.MessageUtil;
+import com.paulorodrigues.authentication.config.StreamingExporter;
 import jakarta.transaction.Transactional;
 import lombok.extern.log4j.Log4j2;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.foldForSearch;
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.isEmpty;
+
 /**
  *
  * @author paulo.rodrigues
@@ -53,6 +65,16 @@ import java.util.stream.Stream;
 @Log4j2
 public class AddressService {
 
+    private static final List<Map<String, String>> LOGRADOUROS = Stream.of(TipoLogradouro.values()).map(temp -> {
+        Map<String, String> obj = new LinkedHashMap<>();
+        obj.put("value", temp.getName());
+        obj.put("label", temp.getDescription());
+        return Collections.unmodifiableMap(obj);
+    }).collect(Collectors.toUnmodifiableList());
+
+    @Autowired
+    private StreamingExporter streamingExporter;
+
     @Autowired
     private AddressRepository addressRepository;
     
@@ -65,6 +87,30 @@ public class AddressService {
     @Autowired
     private CountryRepository countryRepository;
 
+    @Autowired
+    private GeoCatalog geoCatalog;
+
+    @Autowired
+    private CityNameIndex cityNameIndex;
+
+    @Autowired
+    private CepIndex cepIndex;
+
+    @Autowired
+    private AddressSpatialIndex addressSpatialIndex;
+
+    @Value("${auth.city-autocomplete.max-results:50}")
+    private int maxAutocompleteResults;
+
+    @Value("${auth.address-search.max-results:100}")
+    private int maxSearchResults;
+
+    @Value("${auth.address-geo.max-radius-km:100}")
+    private double maxRadiusKm;
+
+    @Value("${auth.address-geo.max-results:500}")
+    private int maxGeoResults;
+
     public Address findById(Long addressId) throws NotFoundException {
         log.info("Finding address by addressId={}", addressId);
         return addressRepository.findById(addressId)
@@ -74,15 +120,21 @@ public class AddressService {
     }
 
     public AddressDTO findDTOById(Long addressId) throws NotFoundException {
-        return findById(addressId).toDTO();
+        log.info("Finding address by addressId={}", addressId);
+        return addressRepository.findSummaryById(addressId)
+                .map(AddressService::toDTO)
+                .orElseThrow(
+                        () -> new NotFoundException(MessageUtil.getMessage("ADDRESS_NOT_FOUND") + " ID: " + addressId)
+                );
     }
 
     public AddressDTO findByPersonId(Long personId) throws NotFoundException {
         log.info("Finding address by personId={}", personId);
-        return addressRepository.findById(personId)
-               .orElseThrow(
+        return addressRepository.findSummaryById(personId)
+                .map(AddressService::toDTO)
+                .orElseThrow(
                         () -> new NotFoundException(MessageUtil.getMessage("ADDRESS_NOT_FOUND") + " ID: " + personId)
-                ).toDTO();
+                );
     }
 
     public AddressDTO create(AddressDTO address) throws InvalidRequestException {
@@ -106,6 +158,8 @@ public class AddressService {
         addressToEdit.setCreateBy(createBy);
         addressToEdit.setCreateAt(createAt);
         addressToEdit.setId(addressId);
+        // The mapper only copies the city id and name, the formatted address needs its state and country
+        addressToEdit.setCity(getCityFromDTO(addressDetail.getCity()));
         log.info("Updating address id={}, name={}", addressId, addressToEdit.getName());
         return save(addressToEdit).toDTO();
     }
@@ -163,36 +217,138 @@ public class AddressService {
     }
 
     public List<Map<String, String>> getLogradouros() {
-        return Stream.of(TipoLogradouro.values()).map(temp -> {
-            Map<String, String> obj = new HashMap<>();
-            obj.put("value", temp.getName());
-            obj.put("label", temp.getDescription());
-            return obj;
-        }).collect(Collectors.toList());
+        return LOGRADOUROS;
     }
 
      public List<CountryDTO> getAllCountries(){
-        return countryRepository.findAll().stream().map(Country::toDTO).collect(Collectors.toList());
+        return geoCatalog.getCountries();
     }
      
     public List<StateDTO> getAllStates(Long countryId){
-        Optional<Country> country = countryRepository.findById(countryId);
-        return country.map(value ->
-                        stateCountryRepository.findByCountry(value).stream().map(StateCountry::toDTO).collect(Collectors.toList()))
-                .orElse(null);
+        return Objects.isNull(countryId) ? null : geoCatalog.getStates(countryId);
     }
     
     public List<CityDTO> getAllCities(Long countryId, Long stateId){
-        Country country = countryRepository.findById(countryId).orElse(null);
-        StateCountry state = stateCountryRepository.findById(stateId).orElse(null);
-        if(country == null || state == null){
+        if (Objects.isNull(countryId) || Objects.isNull(stateId)) {
             return null;
         }
-        return cityRepository.findByCountryAndState(country, state).stream()
-                .map(City::toDTO).collect(Collectors.toList());
+        return geoCatalog.getCities(countryId, stateId);
+    }
+
+    public List<CityDTO> autocompleteCities(String prefix, Long stateId, Long countryId, int limit) {
+        return cityNameIndex.startingWith(prefix, stateId, countryId, Math.min(limit, maxAutocompleteResults));
     }
 
+    public AddressDTO findByCep(String cep) throws NotFoundException {
+        CepIndex.CepLocation location = cepIndex.find(cep);
+        if (Objects.isNull(location)) {
+            throw new NotFoundException(MessageUtil.getMessage("CEP_NOT_FOUND") + " CEP: " + cep);
+        }
+        return AddressDTO.builder()
+                .cep(cep.replaceAll("\\D", ""))
+                .city(geoCatalog.getCity(location.getCityId()))
+                .neighborhood(location.getNeighborhood())
+                .build();
+    }
+
+    public List<AddressDTO> findNearby(double latitude, double longitude, double radiusKm, int limit) throws InvalidRequestException {
+        if (!isValidPoint(latitude, longitude) || !(radiusKm > 0) || radiusKm > maxRadiusKm || limit <= 0) {
+            throw new InvalidRequestException(MessageUtil.getMessage("ADDRESS_GEO_QUERY_INVALID"));
+        }
+        return findDTOsByIds(addressSpatialIndex.nearby(latitude, longitude, radiusKm, Math.min(limit, maxGeoResults)));
+    }
+
+    public List<AddressDTO> findWithin(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, int limit) throws InvalidRequestException {
+        if (!isValidPoint(minLatitude, minLongitude) || !isValidPoint(maxLatitude, maxLongitude)
+                || minLatitude > maxLatitude || minLongitude > maxLongitude || limit <= 0) {
+            throw new InvalidRequestException(MessageUtil.getMessage("ADDRESS_GEO_QUERY_INVALID"));
+        }
+        return findDTOsByIds(addressSpatialIndex.within(minLatitude, minLongitude, maxLatitude, maxLongitude, Math.min(limit, maxGeoResults)));
+    }
+
+    private static boolean isValidPoint(double latitude, double longitude) {
+        return Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180;
+    }
+
+    /**
+     * One projection query for all ids, returned in the order of {@code ids}.
+     */
+    private List<AddressDTO> findDTOsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, AddressDTO> byId = new HashMap<>();
+        addressRepository.findSummariesByIds(ids).forEach(summary -> byId.put(summary.getId(), toDTO(summary)));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Unpaged variant kept for {@code GET /fetch/{name}}; returns the first page of {@link #search}.
+     */
     public List<AddressDTO> findByName(String name) {
-        return addressRepository.findByName(name).stream().map(Address::toDTO).collect(Collectors.toList());
+        if (isEmpty(name)) {
+            return addressRepository.findSummariesByName(name).stream().map(AddressService::toDTO).collect(Collectors.toList());
+        }
+        return search(name, PageRequest.of(0, maxSearchResults)).getContent();
+    }
+
+    /**
+     * Accent- and case-insensitive fuzzy search over name, neighborhood and formatted address,
+     * ranked by word similarity.
+     */
+    public Page<AddressDTO> search(String term, Pageable pageable) {
+        String folded = foldForSearch(term);
+        if (folded.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Pageable capped = pageable.getPageSize() > maxSearchResults ? PageRequest.of(pageable.getPageNumber(), maxSearchResults) : pageable;
+        Page<Long> ids = addressRepository.searchIds(folded, escapeLike(folded), capped);
+        return new PageImpl<>(findDTOsByIds(ids.getContent()), capped, ids.getTotalElements());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Every address ordered by id, streamed from the summary projection.
+     */
+    public ResponseEntity<StreamingResponseBody> export(ExportFormat format) {
+        log.info("Exporting addresses format={}", format);
+        LinkedHashMap<String, Function<AddressDTO, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", AddressDTO::getId);
+        columns.put("logradouro", AddressDTO::getLogradouro);
+        columns.put("name", AddressDTO::getName);
+        columns.put("number", AddressDTO::getNumber);
+        columns.put("neighborhood", AddressDTO::getNeighborhood);
+        columns.put("cep", AddressDTO::getCep);
+        columns.put("zipCode", AddressDTO::getZipCode);
+        columns.put("city", address -> Objects.isNull(address.getCity()) ? null : address.getCity().getName());
+        columns.put("latitude", AddressDTO::getLatitude);
+        columns.put("longitude", AddressDTO::getLongitude);
+        columns.put("fmtAddress", AddressDTO::getFmtAddress);
+        return streamingExporter.export("addresses", format, addressRepository::streamSummariesForExport, AddressService::toDTO, columns);
+    }
+
+    /**
+     * Same DTO as {@link Address#toDTO()}, built from a single-statement projection.
+     */
+    private static AddressDTO toDTO(AddressRepository.AddressSummary summary) {
+        boolean hasCity = Objects.nonNull(summary.getCityId());
+        return AddressDTO.builder()
+                .id(summary.getId())
+                .logradouro(summary.getLogradouro())
+                .city(hasCity ? CityDTO.builder().id(summary.getCityId()).name(summary.getCityName()).build() : null)
+                .name(summary.getName())
+                .number(summary.getNumber())
+                .cep(summary.getCep())
+                .zipCode(summary.getZipCode())
+                .neighborhood(summary.getNeighborhood())
+                .coordination(summary.getCoordination())
+                .latitude(summary.getLatitude())
+                .longitude(summary.getLongitude())
+                .referentialPoint(summary.getReferentialPoint())
+                .fmtAddress(Objects.nonNull(summary.getFmtAddress()) ? summary.getFmtAddress() : AddressFormatService.format(summary))
+                .build();
     }
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import com.paulorodrigues.authentication.address.repository.AddressRepository;
+import com.paulorodrigues.authentication.address.repository.AddressRepository.AddressPoint;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.parseCoordinates;
+
+/**
+ * Uniform latitude/longitude grid over every address with coordinates. A query only visits the
+ * cells overlapping its bounding box and checks the exact distance or bounds per point. Cells are
+ * concurrent sets, so single-address updates from {@link AddressSpatialListener} need no global lock.
+ * The listener only sees writes made on this node, so the whole index is reloaded on a schedule too.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class AddressSpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final String SET_COORDINATES = "UPDATE address SET latitude = ?, longitude = ? WHERE id = ? AND latitude IS NULL";
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final double cellDegrees;
+    private final Map<Long, Set<Point>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, Point> points = new ConcurrentHashMap<>();
+    private final Map<Long, Long> removals = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public AddressSpatialIndex(@Value("${auth.address-geo.cell-degrees:0.1}") double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    /**
+     * Loads every address; rows saved before the typed columns existed are parsed from
+     * {@code coordination} here and written back. Local updates and removals made while the
+     * rows are read are newer than the rows, so they win over them.
+     */
+    @PostConstruct
+    @Scheduled(initialDelayString = "${auth.address-geo.reload-interval-ms:3600000}",
+            fixedDelayString = "${auth.address-geo.reload-interval-ms:3600000}")
+    public void load() {
+        long start = System.currentTimeMillis();
+        long startSequence = sequence.get();
+        Set<Long> loaded = new HashSet<>();
+        List<Object[]> backfill = new ArrayList<>();
+        for (AddressPoint row : addressRepository.findAllPoints()) {
+            if (Objects.nonNull(row.getLatitude()) && Objects.nonNull(row.getLongitude())) {
+                place(new Point(row.getId(), row.getLatitude(), row.getLongitude(), startSequence), startSequence);
+                loaded.add(row.getId());
+                continue;
+            }
+            double[] coordinates = parseCoordinates(row.getCoordination());
+            if (Objects.nonNull(coordinates)) {
+                place(new Point(row.getId(), coordinates[0], coordinates[1], startSequence), startSequence);
+                loaded.add(row.getId());
+                backfill.add(new Object[]{coordinates[0], coordinates[1], row.getId()});
+            }
+        }
+        int dropped = 0;
+        for (Long addressId : new ArrayList<>(points.keySet())) {
+            if (!loaded.contains(addressId) && drop(addressId, startSequence)) {
+                dropped++;
+            }
+        }
+        removals.values().removeIf(removedAt -> removedAt <= startSequence);
+        if (!backfill.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_COORDINATES, backfill);
+        }
+        log.info("Address spatial index loaded points={}, cells={}, dropped={}, backfilled={}, elapsedMillis={}",
+                points.size(), cells.size(), dropped, backfill.size(), System.currentTimeMillis() - start);
+    }
+
+    public void upsert(long addressId, double latitude, double longitude) {
+        place(new Point(addressId, latitude, longitude, sequence.incrementAndGet()), Long.MAX_VALUE);
+    }
+
+    public void remove(long addressId) {
+        long removedAt = sequence.incrementAndGet();
+        points.compute(addressId, (id, previous) -> {
+            removals.put(id, removedAt);
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Address ids within {@code radiusKm} of the point, nearest first, at most {@code limit}.
+     */
+    public List<Long> nearby(double latitude, double longitude, double radiusKm, int limit) {
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        double lonDelta = cosLat < 1e-6 ? 180 : Math.min(180, radiusKm / (KM_PER_DEGREE * cosLat));
+        List<Point> candidates = collect(latitude - latDelta, longitude - lonDelta, latitude + latDelta, longitude + lonDelta);
+        List<double[]> hits = new ArrayList<>();
+        for (Point point : candidates) {
+            double distance = distanceKm(latitude, longitude, point.latitude, point.longitude);
+            if (distance <= radiusKm) {
+                hits.add(new double[]{distance, point.addressId});
+            }
+        }
+        hits.sort(Comparator.comparingDouble(hit -> hit[0]));
+        List<Long> ids = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            ids.add((long) hits.get(i)[1]);
+        }
+        return ids;
+    }
+
+    /**
+     * Address ids inside the box, ordered by id, at most {@code limit}.
+     */
+    public List<Long> within(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, int limit) {
+        List<Long> ids = new ArrayList<>();
+        for (Point point : collect(minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+            if (point.latitude >= minLatitude && point.latitude <= maxLatitude
+                    && point.longitude >= minLongitude && point.longitude <= maxLongitude) {
+                ids.add(point.addressId);
+            }
+        }
+        Collections.sort(ids);
+        return ids.size() > limit ? ids.subList(0, limit) : ids;
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Points of the cells overlapping the box. A box covering more cells than are populated
+     * walks the populated ones instead.
+     */
+    private List<Point> collect(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        int minRow = row(Math.max(-90, minLatitude));
+        int maxRow = row(Math.min(90, maxLatitude));
+        int minColumn = column(Math.max(-180, minLongitude));
+        int maxColumn = column(Math.min(180, maxLongitude));
+        List<Point> result = new ArrayList<>();
+        if (minRow > maxRow || minColumn > maxColumn) {
+            return result;
+        }
+        long boxCells = (long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+        if (boxCells > cells.size()) {
+            cells.forEach((key, cell) -> {
+                int row = (int) (key >> 32);
+                int column = (int) (long) key;
+                if (row >= minRow && row <= maxRow && column >= minColumn && column <= maxColumn) {
+                    result.addAll(cell);
+                }
+            });
+            return result;
+        }
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                Set<Point> cell = cells.get(key(row, column));
+                if (cell != null) {
+                    result.addAll(cell);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Swaps the point of its address inside {@code compute}, so concurrent writes to one address
+     * never leave it in two cells. A point older than {@code notAfter} is kept.
+     */
+    private void place(Point point, long notAfter) {
+        points.compute(point.addressId, (id, previous) -> {
+            if (previous != null && previous.sequence > notAfter) {
+                return previous;
+            }
+            if (previous == null && removals.getOrDefault(id, 0L) > notAfter) {
+                return null;
+            }
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+            // Added inside compute so it cannot race with removeFromCell dropping the emptied cell
+            cells.compute(cellKey(point.latitude, point.longitude), (key, cell) -> {
+                Set<Point> target = cell == null ? ConcurrentHashMap.newKeySet() : cell;
+                target.add(point);
+                return target;
+            });
+            return point;
+        });
+    }
+
+    /**
+     * Removes an address the database no longer has, unless it was written here after {@code notAfter}.
+     */
+    private boolean drop(long addressId, long notAfter) {
+        boolean[] dropped = new boolean[1];
+        points.computeIfPresent(addressId, (id, previous) -> {
+            if (previous.sequence > notAfter) {
+                return previous;
+            }
+            removeFromCell(previous);
+            dropped[0] = true;
+            return null;
+        });
+        return dropped[0];
+    }
+
+    private void removeFromCell(Point point) {
+        cells.computeIfPresent(cellKey(point.latitude, point.longitude), (key, cell) -> {
+            cell.remove(point);
+            return cell.isEmpty() ? null : cell;
+        });
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return key(row(latitude), column(longitude));
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static final class Point {
+
+        private final long addressId;
+        private final double latitude;
+        private final double longitude;
+        private final long sequence;
+
+        private Point(long addressId, double latitude, double longitude, long sequence) {
+            this.addressId = addressId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.sequence = sequence;
+        }
+    }
+}
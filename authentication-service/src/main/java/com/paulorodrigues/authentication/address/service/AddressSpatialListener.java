@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import com.paulorodrigues.authentication.address.entity.Address;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * JPA listener on {@link Address} that moves the address inside {@link AddressSpatialIndex}
+ * after each committed save or delete.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+public class AddressSpatialListener {
+
+    @Autowired
+    @Lazy
+    private AddressSpatialIndex addressSpatialIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Address address) {
+        long addressId = address.getId();
+        Double latitude = address.getLatitude();
+        Double longitude = address.getLongitude();
+        if (Objects.isNull(latitude) || Objects.isNull(longitude)) {
+            AfterCommit.run(() -> addressSpatialIndex.remove(addressId));
+        } else {
+            AfterCommit.run(() -> addressSpatialIndex.upsert(addressId, latitude, longitude));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Address address) {
+        long addressId = address.getId();
+        AfterCommit.run(() -> addressSpatialIndex.remove(addressId));
+    }
+}
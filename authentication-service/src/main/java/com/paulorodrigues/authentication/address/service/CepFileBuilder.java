@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import com.paulorodrigues.authentication.address.repository.CityRepository;
+import com.paulorodrigues.authentication.address.repository.CityRepository.CitySummary;
+import com.paulorodrigues.authentication.commons.model.CepReloadResult;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.isEmpty;
+
+/**
+ * Builds the {@link CepIndex} data file from a CSV of CEP ranges:
+ * {@code cep_start,cep_end,ibge_code,neighborhood}, where an empty end means a single CEP.
+ * Cities are matched by IBGE code. The file is written next to the target and moved into
+ * place, then the index is remapped. Runs at startup when the CSV is newer than the file,
+ * and on demand through {@link #reload()}.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class CepFileBuilder {
+
+    private static final int MAX_NEIGHBORHOOD_BYTES = 0xFFFF;
+
+    @Autowired
+    private CepIndex cepIndex;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Value("${auth.cep.source-csv:}")
+    private String sourceCsv;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path dataFile = cepIndex.getDataFile();
+        if (!isEmpty(sourceCsv) && Objects.nonNull(dataFile) && isStale(Path.of(sourceCsv), dataFile)) {
+            build(Path.of(sourceCsv));
+        } else {
+            cepIndex.reload();
+        }
+    }
+
+    /**
+     * Rebuilds from the configured CSV when there is one, otherwise maps the data file again,
+     * e.g. after it was replaced by a deploy.
+     */
+    public CepReloadResult reload() throws IOException {
+        if (!isEmpty(sourceCsv) && Files.isRegularFile(Path.of(sourceCsv))) {
+            return build(Path.of(sourceCsv));
+        }
+        long start = System.currentTimeMillis();
+        cepIndex.reload();
+        return CepReloadResult.builder()
+                .source(Objects.toString(cepIndex.getDataFile(), null))
+                .ranges(cepIndex.getRangeCount())
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    public synchronized CepReloadResult build(Path csv) throws IOException {
+        Path dataFile = cepIndex.getDataFile();
+        if (Objects.isNull(dataFile)) {
+            throw new IllegalStateException("auth.cep.data-file is not configured");
+        }
+        long start = System.currentTimeMillis();
+        Map<String, CitySummary> citiesByIbgeCode = new HashMap<>();
+        cityRepository.findAllSummaries().forEach(city -> {
+            if (!isEmpty(city.getIbgeCode())) {
+                citiesByIbgeCode.put(city.getIbgeCode().trim(), city);
+            }
+        });
+
+        List<Range> ranges = new ArrayList<>();
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Range range = parse(line, citiesByIbgeCode);
+                if (range == null) {
+                    skipped++;
+                } else {
+                    ranges.add(range);
+                }
+            }
+        }
+        ranges.sort(Comparator.comparingInt(range -> range.start));
+        List<Range> accepted = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            if (!accepted.isEmpty() && range.start <= accepted.get(accepted.size() - 1).end) {
+                log.warn("Skipping overlapping CEP range start={}, end={}", range.start, range.end);
+                skipped++;
+                continue;
+            }
+            accepted.add(range);
+        }
+
+        Path temp = Files.createTempFile(dataFile.toAbsolutePath().getParent(), "cep", ".tmp");
+        try {
+            write(accepted, temp);
+            Files.move(temp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        cepIndex.reload();
+        long elapsedMillis = System.currentTimeMillis() - start;
+        log.info("CEP data file built csv={}, ranges={}, skipped={}, elapsedMillis={}",
+                csv, accepted.size(), skipped, elapsedMillis);
+        return CepReloadResult.builder()
+                .source(csv.toString())
+                .rebuilt(true)
+                .ranges(accepted.size())
+                .rowsSkipped(skipped)
+                .elapsedMillis(elapsedMillis)
+                .build();
+    }
+
+    private static void write(List<Range> ranges, Path target) throws IOException {
+        // Neighborhood names repeat across ranges, each distinct one is stored once
+        Map<String, Integer> offsets = new HashMap<>();
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream stringOut = new DataOutputStream(strings);
+        int stringsStart = CepIndex.recordOffset(ranges.size());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            out.writeInt(CepIndex.MAGIC);
+            out.writeInt(ranges.size());
+            for (Range range : ranges) {
+                int offset = CepIndex.NO_NEIGHBORHOOD;
+                if (!isEmpty(range.neighborhood)) {
+                    Integer known = offsets.get(range.neighborhood);
+                    if (known == null) {
+                        known = stringsStart + strings.size();
+                        byte[] bytes = range.neighborhood.getBytes(StandardCharsets.UTF_8);
+                        int length = Math.min(bytes.length, MAX_NEIGHBORHOOD_BYTES);
+                        stringOut.writeShort(length);
+                        stringOut.write(bytes, 0, length);
+                        offsets.put(range.neighborhood, known);
+                    }
+                    offset = known;
+                }
+                out.writeInt(range.start);
+                out.writeInt(range.end);
+                out.writeLong(range.cityId);
+                out.writeLong(range.stateId);
+                out.writeInt(offset);
+            }
+            strings.writeTo(out);
+        }
+    }
+
+    private static Range parse(String line, Map<String, CitySummary> citiesByIbgeCode) {
+        String[] columns = line.split(",", 4);
+        if (columns.length < 3) {
+            return null;
+        }
+        int start = CepIndex.parse(unquote(columns[0]));
+        String endColumn = unquote(columns[1]);
+        int end = isEmpty(endColumn) ? start : CepIndex.parse(endColumn);
+        CitySummary city = citiesByIbgeCode.get(unquote(columns[2]));
+        if (start < 0 || end < start || city == null) {
+            return null;
+        }
+        long stateId = Objects.isNull(city.getStateId()) ? -1 : city.getStateId();
+        String neighborhood = columns.length > 3 ? unquote(columns[3]) : null;
+        return new Range(start, end, city.getId(), stateId, neighborhood);
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static boolean isStale(Path csv, Path dataFile) throws IOException {
+        if (!Files.isRegularFile(csv)) {
+            log.warn("CEP source CSV not found csv={}", csv);
+            return false;
+        }
+        return !Files.isRegularFile(dataFile)
+                || Files.getLastModifiedTime(csv).compareTo(Files.getLastModifiedTime(dataFile)) > 0;
+    }
+
+    private static final class Range {
+
+        private final int start;
+        private final int end;
+        private final long cityId;
+        private final long stateId;
+        private final String neighborhood;
+
+        private Range(int start, int end, long cityId, long stateId, String neighborhood) {
+            this.start = start;
+            this.end = end;
+            this.cityId = cityId;
+            this.stateId = stateId;
+            this.neighborhood = neighborhood;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.isEmpty;
+
+/**
+ * Resolves a CEP to city, state and neighborhood from a sorted range file mapped into memory,
+ * so the data lives in the page cache instead of the heap.
+ * <p>
+ * File layout (big-endian): magic, record count, then fixed-size records sorted by range start
+ * {@code [startCep int, endCep int, cityId long, stateId long, neighborhoodOffset int]}, then the
+ * neighborhood strings as {@code [length short, UTF-8 bytes]}. {@link CepFileBuilder} writes it.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class CepIndex {
+
+    static final int MAGIC = 0x43455031;
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 28;
+    static final int NO_NEIGHBORHOOD = -1;
+
+    private final Path dataFile;
+    private volatile Mapping mapping;
+
+    public CepIndex(@Value("${auth.cep.data-file:}") String dataFile) {
+        this.dataFile = isEmpty(dataFile) ? null : Path.of(dataFile);
+    }
+
+    public Path getDataFile() {
+        return dataFile;
+    }
+
+    /**
+     * Maps the data file again, e.g. after {@link CepFileBuilder} replaced it. A missing file
+     * leaves the index empty.
+     */
+    public synchronized void reload() throws IOException {
+        if (Objects.isNull(dataFile) || !Files.isRegularFile(dataFile)) {
+            log.warn("No CEP data file available dataFile={}", dataFile);
+            mapping = null;
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a CEP data file: " + dataFile);
+            }
+            mapping = new Mapping(buffer, buffer.getInt(4));
+            log.info("CEP index mapped dataFile={}, ranges={}", dataFile, mapping.count);
+        }
+    }
+
+    public boolean isLoaded() {
+        return mapping != null;
+    }
+
+    public int getRangeCount() {
+        Mapping current = mapping;
+        return current == null ? 0 : current.count;
+    }
+
+    /**
+     * Null when the CEP is malformed, not covered by any range or no data file is loaded.
+     */
+    public CepLocation find(String cep) {
+        Mapping current = mapping;
+        int value = parse(cep);
+        if (current == null || value < 0) {
+            return null;
+        }
+        ByteBuffer buffer = current.buffer;
+        int low = 0;
+        int high = current.count - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(recordOffset(mid)) <= value) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (candidate < 0) {
+            return null;
+        }
+        int offset = recordOffset(candidate);
+        if (value > buffer.getInt(offset + 4)) {
+            return null;
+        }
+        return new CepLocation(buffer.getLong(offset + 8), buffer.getLong(offset + 16), readString(buffer, buffer.getInt(offset + 24)));
+    }
+
+    static int recordOffset(int index) {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    /**
+     * Eight digits, punctuation ignored ("90619-900" is accepted); -1 otherwise.
+     */
+    static int parse(String cep) {
+        if (Objects.isNull(cep)) {
+            return -1;
+        }
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i < cep.length(); i++) {
+            char c = cep.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+            } else if (c != '-' && c != '.' && c != ' ') {
+                return -1;
+            }
+        }
+        return digits == 8 ? value : -1;
+    }
+
+    private static String readString(ByteBuffer buffer, int position) {
+        if (position == NO_NEIGHBORHOOD) {
+            return null;
+        }
+        byte[] bytes = new byte[buffer.getShort(position) & 0xFFFF];
+        // Absolute bulk get is Java 13+, read through a duplicate so the shared position is untouched
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Mapping {
+
+        private final ByteBuffer buffer;
+        private final int count;
+
+        private Mapping(ByteBuffer buffer, int count) {
+            this.buffer = buffer;
+            this.count = count;
+        }
+    }
+
+    public static final class CepLocation {
+
+        private final long cityId;
+        private final long stateId;
+        private final String neighborhood;
+
+        public CepLocation(long cityId, long stateId, String neighborhood) {
+            this.cityId = cityId;
+            this.stateId = stateId;
+            this.neighborhood = neighborhood;
+        }
+
+        public long getCityId() {
+            return cityId;
+        }
+
+        public long getStateId() {
+            return stateId;
+        }
+
+        public String getNeighborhood() {
+            return neighborhood;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import com.paulorodrigues.authentication.address.entity.City;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link City} that keeps {@link CityNameIndex} current one city at a time.
+ * Changes are applied after the transaction commits, so rolled back writes never show up.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+public class CityIndexListener {
+
+    @Autowired
+    private CityNameIndex cityNameIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(City city) {
+        AfterCommit.run(() -> cityNameIndex.upsert(city));
+    }
+
+    @PostRemove
+    public void onRemove(City city) {
+        long cityId = city.getId();
+        AfterCommit.run(() -> cityNameIndex.remove(cityId));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import com.paulorodrigues.authentication.address.entity.City;
+import com.paulorodrigues.authentication.address.repository.CityRepository.CitySummary;
+import com.paulorodrigues.authentication.commons.model.CityDTO;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.foldForSearch;
+
+/**
+ * Type-ahead over city names. Entries are kept in an array sorted by the accent-folded,
+ * lowercased name, so a prefix query is one binary search plus a short forward scan.
+ * Readers use the published array without locking; single-city changes copy it.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class CityNameIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing((Entry e) -> e.key).thenComparingLong(e -> e.cityId);
+
+    private volatile Entry[] entries = new Entry[0];
+
+    public synchronized void rebuild(Collection<CitySummary> cities) {
+        Entry[] built = cities.stream()
+                .filter(city -> Objects.nonNull(city.getName()))
+                .map(city -> Entry.of(city.getId(), city.getName(), city.getStateId(), city.getCountryId()))
+                .sorted(ORDER)
+                .toArray(Entry[]::new);
+        entries = built;
+        log.info("City name index rebuilt size={}", built.length);
+    }
+
+    /**
+     * Adds the city or replaces its previous entry, e.g. after a rename.
+     */
+    public synchronized void upsert(City city) {
+        List<Entry> updated = new ArrayList<>(Arrays.asList(entries));
+        updated.removeIf(entry -> entry.cityId == city.getId());
+        if (Objects.nonNull(city.getName())) {
+            Entry entry = Entry.of(city.getId(), city.getName(),
+                    Objects.isNull(city.getState()) ? null : city.getState().getId(),
+                    Objects.isNull(city.getCountry()) ? null : city.getCountry().getId());
+            int position = Collections.binarySearch(updated, entry, ORDER);
+            updated.add(position < 0 ? -position - 1 : position, entry);
+        }
+        entries = updated.toArray(new Entry[0]);
+    }
+
+    public synchronized void remove(long cityId) {
+        entries = Arrays.stream(entries).filter(entry -> entry.cityId != cityId).toArray(Entry[]::new);
+    }
+
+    /**
+     * Up to {@code limit} cities whose folded name starts with the folded prefix, in name order.
+     * A null state or country id means no restriction.
+     */
+    public List<CityDTO> startingWith(String prefix, Long stateId, Long countryId, int limit) {
+        String key = foldForSearch(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Entry[] current = entries;
+        List<CityDTO> result = new ArrayList<>(Math.min(limit, 16));
+        for (int i = lowerBound(current, key); i < current.length && current[i].key.startsWith(key); i++) {
+            Entry entry = current[i];
+            if ((stateId == null || entry.stateId == stateId) && (countryId == null || entry.countryId == countryId)) {
+                result.add(CityDTO.builder().id(entry.cityId).name(entry.name).build());
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    private static int lowerBound(Entry[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Entry {
+
+        private final String key;
+        private final String name;
+        private final long cityId;
+        private final long stateId;
+        private final long countryId;
+
+        private Entry(String key, String name, long cityId, long stateId, long countryId) {
+            this.key = key;
+            this.name = name;
+            this.cityId = cityId;
+            this.stateId = stateId;
+            this.countryId = countryId;
+        }
+
+        private static Entry of(long cityId, String name, Long stateId, Long countryId) {
+            return new Entry(foldForSearch(name), name, cityId,
+                    Objects.isNull(stateId) ? -1 : stateId,
+                    Objects.isNull(countryId) ? -1 : countryId);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import com.paulorodrigues.authentication.address.repository.CityRepository;
+import com.paulorodrigues.authentication.address.repository.CityRepository.CitySummary;
+import com.paulorodrigues.authentication.address.repository.CountryRepository;
+import com.paulorodrigues.authentication.address.repository.StateCountryRepository;
+import com.paulorodrigues.authentication.address.repository.StateCountryRepository.StateSummary;
+import com.paulorodrigues.authentication.commons.model.CityDTO;
+import com.paulorodrigues.authentication.commons.model.CountryDTO;
+import com.paulorodrigues.authentication.commons.model.StateDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Immutable in-memory copy of countries, states and cities, the reference data behind the
+ * address forms. Lookups are primitive-keyed and never touch the database; {@link #refresh()}
+ * builds a complete new snapshot and swaps it in with a single volatile write. Loading takes
+ * three flat projection queries, the eager state and country associations are never walked.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class GeoCatalog {
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private StateCountryRepository stateCountryRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private CityNameIndex cityNameIndex;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${auth.geo-catalog.refresh-interval-ms:3600000}",
+            fixedDelayString = "${auth.geo-catalog.refresh-interval-ms:3600000}")
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        List<CountryDTO> countries = countryRepository.findAllDTO();
+        List<StateSummary> states = stateCountryRepository.findAllSummaries();
+        List<CitySummary> cities = cityRepository.findAllSummaries();
+        snapshot = Snapshot.build(snapshot.version + 1, countries, states, cities);
+        cityNameIndex.rebuild(cities);
+        log.info("Geo catalog loaded countries={}, states={}, cities={}, elapsedMillis={}",
+                countries.size(), states.size(), cities.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Changes every time a new snapshot is published; lets callers drop data derived from an older one.
+     */
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    public List<CountryDTO> getCountries() {
+        return snapshot.countries;
+    }
+
+    /**
+     * Null when the country is unknown, as the repository-backed lookup did.
+     */
+    public List<StateDTO> getStates(long countryId) {
+        return snapshot.statesByCountry.get(countryId);
+    }
+
+    public CityDTO getCity(long cityId) {
+        return snapshot.citiesById.get(cityId);
+    }
+
+    /**
+     * Null when either the country or the state is unknown.
+     */
+    public List<CityDTO> getCities(long countryId, long stateId) {
+        Snapshot current = snapshot;
+        LongIndex<List<CityDTO>> byCountry = current.citiesByState.get(stateId);
+        if (byCountry == null || !current.statesByCountry.containsKey(countryId)) {
+            return null;
+        }
+        List<CityDTO> cities = byCountry.get(countryId);
+        return cities == null ? Collections.emptyList() : cities;
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(0, Collections.emptyList(), new LongIndex<>(0), new LongIndex<>(0), new LongIndex<>(0));
+
+        private final long version;
+        private final List<CountryDTO> countries;
+        private final LongIndex<List<StateDTO>> statesByCountry;
+        private final LongIndex<LongIndex<List<CityDTO>>> citiesByState;
+        private final LongIndex<CityDTO> citiesById;
+
+        private Snapshot(long version, List<CountryDTO> countries, LongIndex<List<StateDTO>> statesByCountry,
+                         LongIndex<LongIndex<List<CityDTO>>> citiesByState, LongIndex<CityDTO> citiesById) {
+            this.version = version;
+            this.countries = countries;
+            this.statesByCountry = statesByCountry;
+            this.citiesByState = citiesByState;
+            this.citiesById = citiesById;
+        }
+
+        private static Snapshot build(long version, List<CountryDTO> countries, List<StateSummary> states, List<CitySummary> cities) {
+            Map<Long, List<StateDTO>> statesByCountry = new LinkedHashMap<>();
+            countries.forEach(country -> statesByCountry.put(country.getId(), new ArrayList<>()));
+            for (StateSummary state : states) {
+                if (Objects.nonNull(state.getCountryId())) {
+                    CountryDTO country = CountryDTO.builder().id(state.getCountryId()).name(state.getCountryName()).build();
+                    statesByCountry.computeIfAbsent(state.getCountryId(), id -> new ArrayList<>())
+                            .add(StateDTO.builder().id(state.getId()).name(state.getName()).country(country).build());
+                }
+            }
+            Map<Long, Map<Long, List<CityDTO>>> citiesByState = new HashMap<>();
+            states.forEach(state -> citiesByState.put(state.getId(), new HashMap<>()));
+            LongIndex<CityDTO> cityById = new LongIndex<>(cities.size());
+            for (CitySummary city : cities) {
+                CityDTO dto = CityDTO.builder().id(city.getId()).name(city.getName()).build();
+                cityById.put(city.getId(), dto);
+                if (Objects.nonNull(city.getStateId()) && Objects.nonNull(city.getCountryId())) {
+                    citiesByState.computeIfAbsent(city.getStateId(), id -> new HashMap<>())
+                            .computeIfAbsent(city.getCountryId(), id -> new ArrayList<>())
+                            .add(dto);
+                }
+            }
+
+            LongIndex<List<StateDTO>> stateIndex = new LongIndex<>(statesByCountry.size());
+            statesByCountry.forEach((id, list) -> stateIndex.put(id, List.copyOf(list)));
+            LongIndex<LongIndex<List<CityDTO>>> cityIndex = new LongIndex<>(citiesByState.size());
+            citiesByState.forEach((stateId, byCountry) -> {
+                LongIndex<List<CityDTO>> countryIndex = new LongIndex<>(byCountry.size());
+                byCountry.forEach((countryId, list) -> countryIndex.put(countryId, List.copyOf(list)));
+                cityIndex.put(stateId, countryIndex);
+            });
+            List<CountryDTO> countryList = List.copyOf(countries);
+            return new Snapshot(version, countryList, stateIndex, cityIndex, cityById);
+        }
+    }
+
+    /**
+     * Open-addressing map from primitive long keys, filled once while a snapshot is built and
+     * only read afterwards. Avoids boxing the id on every lookup.
+     */
+    static final class LongIndex<V> {
+
+        private final long[] keys;
+        private final Object[] values;
+        private final boolean[] used;
+        private final int mask;
+
+        LongIndex(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.used = new boolean[capacity];
+            this.mask = capacity - 1;
+        }
+
+        void put(long key, V value) {
+            int slot = slot(key);
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            used[slot] = true;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(long key) {
+            int slot = slot(key);
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return (V) values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        boolean containsKey(long key) {
+            return get(key) != null;
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
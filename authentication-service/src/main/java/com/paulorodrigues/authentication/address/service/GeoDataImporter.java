@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service;
+
+import com.paulorodrigues.authentication.address.entity.City;
+import com.paulorodrigues.authentication.address.entity.Country;
+import com.paulorodrigues.authentication.address.entity.StateCountry;
+import com.paulorodrigues.authentication.address.repository.CountryRepository;
+import com.paulorodrigues.authentication.address.repository.StateCountryRepository;
+import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
+import com.paulorodrigues.authentication.commons.model.CountryDTO;
+import com.paulorodrigues.authentication.commons.model.GeoImportResult;
+import com.paulorodrigues.authentication.commons.util.MessageUtil;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.foldForSearch;
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.isEmpty;
+
+/**
+ * Loads countries, states and cities (e.g. the IBGE municipality table) from a CSV with the
+ * columns {@code ibge_code,city_name,state_name[,country_name]}. The file is streamed and cities
+ * are written in JDBC batches keyed by IBGE code, one transaction per batch, so memory stays flat
+ * and running it again only touches rows that changed. Countries and states are matched by name
+ * and created when missing.
+ *
+ * @author paulo.rodrigues
+ */
+@Service
+@Log4j2
+public class GeoDataImporter {
+
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_IBGE_CODE_LENGTH = 10;
+    private static final String UPDATE_CITY = "UPDATE city SET name = ?, state_id = ?, country_id = ? WHERE ibge_code = ? "
+            + "AND (name IS DISTINCT FROM ? OR state_id IS DISTINCT FROM ? OR country_id IS DISTINCT FROM ?)";
+    private static final String CLEAR_FORMATTED_ADDRESSES = "UPDATE address SET fmt_address = NULL "
+            + "WHERE city_id IN (SELECT id FROM city WHERE ibge_code = ?)";
+    private static final String INSERT_CITY = "INSERT INTO city (id, name, state_id, country_id, ibge_code) "
+            + "SELECT nextval('city_id_seq'), ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM city WHERE ibge_code = ?)";
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private StateCountryRepository stateCountryRepository;
+
+    @Autowired
+    private GeoCatalog geoCatalog;
+
+    @Autowired
+    private AddressFormatService addressFormatService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final TransactionTemplate batchTransaction;
+
+    @Value("${auth.geo-import.source-csv:}")
+    private String sourceCsv;
+
+    @Value("${auth.geo-import.on-startup:false}")
+    private boolean onStartup;
+
+    @Value("${auth.geo-import.default-country:Brasil}")
+    private String defaultCountry;
+
+    @Value("${auth.geo-import.batch-size:1000}")
+    private int batchSize;
+
+    @Autowired
+    public GeoDataImporter(PlatformTransactionManager transactionManager) {
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void importOnStartup() {
+        if (!onStartup || isEmpty(sourceCsv)) {
+            return;
+        }
+        try {
+            importConfiguredSource();
+        } catch (Exception e) {
+            log.error("Exception on geo data import at startup source={}, message={}", sourceCsv, e.getMessage());
+        }
+    }
+
+    public GeoImportResult importConfiguredSource() throws InvalidRequestException, IOException {
+        if (isEmpty(sourceCsv) || !Files.isRegularFile(Path.of(sourceCsv))) {
+            throw new InvalidRequestException(MessageUtil.getMessage("GEO_IMPORT_SOURCE_MISSING"));
+        }
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(sourceCsv), StandardCharsets.UTF_8)) {
+            return importCsv(reader, sourceCsv);
+        }
+    }
+
+    public synchronized GeoImportResult importCsv(BufferedReader reader, String source) throws IOException {
+        long start = System.currentTimeMillis();
+        References references = loadReferences();
+        GeoImportResult result = GeoImportResult.builder().source(source).build();
+        List<Row> batch = new ArrayList<>(batchSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Row row = parse(line, references, result);
+            if (row == null) {
+                continue;
+            }
+            result.setCitiesRead(result.getCitiesRead() + 1);
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                write(batch, result);
+                batch.clear();
+            }
+        }
+        write(batch, result);
+        result.setCitiesUnchanged(result.getCitiesRead() - result.getCitiesWritten());
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info("Geo data imported source={}, countriesCreated={}, statesCreated={}, citiesRead={}, citiesWritten={}, rowsSkipped={}, elapsedMillis={}",
+                source, result.getCountriesCreated(), result.getStatesCreated(), result.getCitiesRead(),
+                result.getCitiesWritten(), result.getRowsSkipped(), result.getElapsedMillis());
+        if (result.getCitiesWritten() > 0 || result.getStatesCreated() > 0 || result.getCountriesCreated() > 0) {
+            // Rows written over JDBC bypass the entity listeners, so the catalog is reloaded as a whole
+            // Same for the second-level cache, cached cities would keep their old names
+            entityManagerFactory.getCache().evict(City.class);
+            geoCatalog.refresh();
+            addressFormatService.requestBackfill();
+        }
+        return result;
+    }
+
+    private void write(List<Row> batch, GeoImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int written = Objects.requireNonNull(batchTransaction.execute(status -> {
+            int changed = 0;
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_CITY, batch, batch.size(), (ps, row) -> {
+                ps.setString(1, row.name);
+                ps.setLong(2, row.stateId);
+                ps.setLong(3, row.countryId);
+                ps.setString(4, row.ibgeCode);
+                ps.setString(5, row.name);
+                ps.setLong(6, row.stateId);
+                ps.setLong(7, row.countryId);
+            })[0];
+            int[] inserted = jdbcTemplate.batchUpdate(INSERT_CITY, batch, batch.size(), (ps, row) -> {
+                ps.setString(1, row.name);
+                ps.setLong(2, row.stateId);
+                ps.setLong(3, row.countryId);
+                ps.setString(4, row.ibgeCode);
+                ps.setString(5, row.ibgeCode);
+            })[0];
+            List<Row> renamed = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                changed += Math.max(updated[i], 0) + Math.max(inserted[i], 0);
+                if (updated[i] > 0) {
+                    renamed.add(batch.get(i));
+                }
+            }
+            if (!renamed.isEmpty()) {
+                jdbcTemplate.batchUpdate(CLEAR_FORMATTED_ADDRESSES, renamed, renamed.size(),
+                        (ps, row) -> ps.setString(1, row.ibgeCode));
+            }
+            return changed;
+        }));
+        result.setCitiesWritten(result.getCitiesWritten() + written);
+    }
+
+    private Row parse(String line, References references, GeoImportResult result) {
+        List<String> columns = split(line);
+        if (columns.size() < 3 || !isIbgeCode(columns.get(0))) {
+            // Header lines fall here as well
+            if (!isEmpty(line.trim())) {
+                result.setRowsSkipped(result.getRowsSkipped() + 1);
+            }
+            return null;
+        }
+        String cityName = columns.get(1);
+        String stateName = columns.get(2);
+        String countryName = columns.size() > 3 && !isEmpty(columns.get(3)) ? columns.get(3) : defaultCountry;
+        if (isEmpty(cityName) || isEmpty(stateName) || cityName.length() > MAX_NAME_LENGTH
+                || stateName.length() > MAX_NAME_LENGTH || countryName.length() > MAX_NAME_LENGTH) {
+            result.setRowsSkipped(result.getRowsSkipped() + 1);
+            return null;
+        }
+        Long countryId = references.countries.get(foldForSearch(countryName));
+        if (countryId == null) {
+            countryId = countryRepository.save(Country.builder().name(countryName).build()).getId();
+            references.countries.put(foldForSearch(countryName), countryId);
+            result.setCountriesCreated(result.getCountriesCreated() + 1);
+        }
+        String stateKey = countryId + ":" + foldForSearch(stateName);
+        Long stateId = references.states.get(stateKey);
+        if (stateId == null) {
+            Country country = countryRepository.getReferenceById(countryId);
+            stateId = stateCountryRepository.save(StateCountry.builder().name(stateName).country(country).build()).getId();
+            references.states.put(stateKey, stateId);
+            result.setStatesCreated(result.getStatesCreated() + 1);
+        }
+        return new Row(columns.get(0), cityName, stateId, countryId);
+    }
+
+    private References loadReferences() {
+        References references = new References();
+        for (CountryDTO country : countryRepository.findAllDTO()) {
+            references.countries.putIfAbsent(foldForSearch(country.getName()), country.getId());
+        }
+        stateCountryRepository.findAllSummaries().stream()
+                .filter(state -> Objects.nonNull(state.getCountryId()))
+                .forEach(state -> references.states.putIfAbsent(state.getCountryId() + ":" + foldForSearch(state.getName()), state.getId()));
+        return references;
+    }
+
+    private static boolean isIbgeCode(String value) {
+        if (value.isEmpty() || value.length() > MAX_IBGE_CODE_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Comma separated, fields may be double-quoted (with "" as an escaped quote).
+     */
+    private static List<String> split(String line) {
+        List<String> columns = new ArrayList<>(4);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                columns.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        columns.add(current.toString().trim());
+        return columns;
+    }
+
+    private static final class References {
+        private final Map<String, Long> countries = new HashMap<>();
+        private final Map<String, Long> states = new HashMap<>();
+    }
+
+    private static final class Row {
+
+        private final String ibgeCode;
+        private final String name;
+        private final long stateId;
+        private final long countryId;
+
+        private Row(String ibgeCode, String name, long stateId, long countryId) {
+            this.ibgeCode = ibgeCode;
+            this.name = name;
+            this.stateId = stateId;
+            this.countryId = countryId;
+        }
+    }
+}
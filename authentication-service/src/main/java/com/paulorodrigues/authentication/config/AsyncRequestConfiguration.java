@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Timeout of asynchronous MVC responses. The only ones in this service are the
+ * {@link StreamingExporter} downloads, which must outlive the servlet container's default
+ * (30 seconds on Tomcat) to stream a full table.
+ *
+ * @author paulo.rodrigues
+ */
+@Configuration
+@Log4j2
+public class AsyncRequestConfiguration implements WebMvcConfigurer {
+
+    @Value("${auth.export.timeout-ms:3600000}")
+    private long exportTimeoutMillis;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        log.info("Async request timeout exportTimeoutMillis={}", exportTimeoutMillis);
+        configurer.setDefaultTimeout(exportTimeoutMillis);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Remembers successful HTTP Basic verifications for a short TTL, so repeated service-to-service
+ * calls with the same static credentials skip the password hash. Entries are keyed by an HMAC of
+ * the credentials under a key generated at startup; the raw secret is never stored.
+ *
+ * @author paulo.rodrigues
+ */
+@Log4j2
+public class CachedBasicAuthenticationProvider implements AuthenticationProvider {
+
+    public static final String CACHE_NAME = "basicCredentials";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int HMAC_KEY_BYTES = 32;
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> verified;
+    private final ThreadLocal<Mac> macs;
+
+    public CachedBasicAuthenticationProvider(AuthenticationProvider delegate, long maxSize, long ttlSeconds, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        byte[] key = new byte[HMAC_KEY_BYTES];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec keySpec = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, CACHE_NAME);
+        log.info("Basic credentials cache created maxSize={}, ttlSeconds={}", maxSize, ttlSeconds);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Object credentials = authentication.getCredentials();
+        if (Objects.isNull(credentials)) {
+            return delegate.authenticate(authentication);
+        }
+        String key = digest(authentication.getName(), credentials.toString());
+        Authentication cached = verified.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            verified.put(key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    public void invalidateAll() {
+        verified.invalidateAll();
+    }
+
+    /**
+     * Same input as the Basic header payload ("user:password"), so one entry per distinct header.
+     */
+    private String digest(String username, String password) {
+        byte[] hmac = macs.get().doFinal((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hmac);
+    }
+}
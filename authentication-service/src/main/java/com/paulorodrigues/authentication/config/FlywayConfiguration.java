@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Flyway owns the schema: {@code V1__baseline_schema.sql} creates the tables as they stood
+ * before Flyway, later versions add columns, indexes and functions on top. Databases that predate
+ * Flyway already hold the V1 tables, so a non-empty schema without a history table is baselined
+ * at version 1 and migrates from V1_1. Both settings can still be overridden through
+ * {@code auth.flyway.*}.
+ *
+ * @author paulo.rodrigues
+ */
+@Configuration
+@Log4j2
+public class FlywayConfiguration {
+
+    @Value("${auth.flyway.baseline-on-migrate:true}")
+    private boolean baselineOnMigrate;
+
+    @Value("${auth.flyway.baseline-version:1}")
+    private String baselineVersion;
+
+    @Bean
+    public FlywayConfigurationCustomizer baselineCustomizer() {
+        return configuration -> {
+            log.info("Flyway baselineOnMigrate={}, baselineVersion={}", baselineOnMigrate, baselineVersion);
+            configuration.baselineOnMigrate(baselineOnMigrate).baselineVersion(baselineVersion);
+        };
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
+import com.paulorodrigues.authentication.user.service.LoginAttemptLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rejects credential-bearing requests from locked source addresses before any password hash runs.
+ * The address is the client one resolved by the server's forward-headers strategy (native by
+ * default, see {@code AuthenticationServiceApplication}), so clients behind the load balancer are
+ * not all throttled as the balancer's own address.
+ */
+@Log4j2
+@Component
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    @Autowired
+    private LoginAttemptLimiter loginAttemptLimiter;
+
+    @Value("${auth.lockout.window-seconds:900}")
+    private long retryAfterSeconds;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (carriesCredentials(request) && loginAttemptLimiter.isAddressLocked(request.getRemoteAddr())) {
+            log.info("Rejected login from locked address={}", request.getRemoteAddr());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean carriesCredentials(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return (authHeader != null && authHeader.startsWith(BASIC_PREFIX))
+                || request.getRequestURI().endsWith(ConstantsUtil.AUTHENTICATIONS_V1_BASE_API + ConstantsUtil.TOKEN_PATH);
+    }
+}
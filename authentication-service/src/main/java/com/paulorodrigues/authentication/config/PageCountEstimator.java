@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Totals for listings paged with {@code CountMode.ESTIMATED}. An unfiltered listing reads the
+ * planner's row estimate for the table; a filtered one runs its exact count once and reuses it
+ * for a short TTL, so scrolling through the pages of one search pays for a single count.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class PageCountEstimator {
+
+    public static final String CACHE_NAME = "pageCounts";
+
+    private static final String PLANNER_ESTIMATE = "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Cache<String, Long> counts;
+
+    @Autowired
+    public PageCountEstimator(@Value("${auth.page-count.max-size:1000}") long maxSize,
+                              @Value("${auth.page-count.ttl-seconds:30}") long ttlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, CACHE_NAME);
+    }
+
+    /**
+     * Estimated number of rows of {@code table} matching {@code filters}; {@code exactCount} runs
+     * only when neither the statistics nor the cache can answer.
+     */
+    public long estimate(String table, Map<String, Object> filters, LongSupplier exactCount) {
+        if (isUnfiltered(filters)) {
+            Long estimate = jdbcTemplate.queryForObject(PLANNER_ESTIMATE, Long.class, table);
+            // A table never analyzed reports -1 (or 0), which would hide every page
+            if (Objects.nonNull(estimate) && estimate > 0) {
+                return estimate;
+            }
+        }
+        String key = table + new TreeMap<>(filters);
+        return counts.get(key, ignored -> exactCount.getAsLong());
+    }
+
+    private static boolean isUnfiltered(Map<String, Object> filters) {
+        for (Object value : filters.values()) {
+            if (value instanceof String ? Strings.isNotBlank((String) value) : Objects.nonNull(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
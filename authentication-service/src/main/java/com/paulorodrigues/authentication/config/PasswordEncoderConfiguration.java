@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import com.paulorodrigues.authentication.user.service.CalibratedPasswordEncoder;
+import com.paulorodrigues.authentication.user.service.PasswordHashingEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PasswordEncoderConfiguration {
+
+    @Value("${auth.password-hashing.pool-size:0}")
+    private int poolSize;
+
+    @Value("${auth.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${auth.password-hashing.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    @Value("${auth.password-hashing.strength:0}")
+    private int strength;
+
+    @Value("${auth.password-hashing.target-millis:250}")
+    private long targetMillis;
+
+    @Value("${auth.password-hashing.min-strength:10}")
+    private int minStrength;
+
+    @Value("${auth.password-hashing.max-strength:16}")
+    private int maxStrength;
+
+    /**
+     * Fleet-wide floor: stored hashes below it are rehashed on login. Unset, it is the fixed
+     * strength when one is configured, otherwise the calibration minimum.
+     */
+    @Value("${auth.password-hashing.upgrade-strength:0}")
+    private int upgradeStrength;
+
+    @Bean
+    public PasswordHashingEngine passwordEncoder(MeterRegistry meterRegistry) {
+        int floor = upgradeStrength > 0 ? upgradeStrength : (strength > 0 ? strength : minStrength);
+        CalibratedPasswordEncoder encoder = strength > 0
+                ? new CalibratedPasswordEncoder(strength, floor)
+                : CalibratedPasswordEncoder.calibrate(targetMillis, minStrength, maxStrength, floor);
+        return new PasswordHashingEngine(encoder, poolSize, queueCapacity, retryAfterSeconds, meterRegistry);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import com.paulorodrigues.authentication.address.service.GeoCatalog;
+import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.DefaultCorsProcessor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the reference-data endpoints (countries, states, cities, logradouros) from bodies
+ * serialized once, kept both plain and gzipped, with a strong ETag over the JSON bytes.
+ * A matching If-None-Match gets a 304 with no body. Cached bodies are dropped whenever
+ * {@link GeoCatalog} publishes a new snapshot. A cached response never reaches the
+ * DispatcherServlet, so the controller's CORS configuration is applied here instead.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class ReferenceDataResponseFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+    private static final List<String> PATTERNS = List.of(
+            ConstantsUtil.ADDRESSES_V1_BASE_API + ConstantsUtil.GET_COUNTRIES_PATH,
+            ConstantsUtil.ADDRESSES_V1_BASE_API + ConstantsUtil.GET_STATES_PATH,
+            ConstantsUtil.ADDRESSES_V1_BASE_API + ConstantsUtil.GET_CITIES_PATH,
+            ConstantsUtil.ADDRESSES_V1_BASE_API + ConstantsUtil.GET_LOGRADOUROS);
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    @Autowired
+    private GeoCatalog geoCatalog;
+
+    @Autowired
+    private HandlerMappingIntrospector handlerMappingIntrospector;
+
+    private volatile Bodies bodies = new Bodies(-1);
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return PATTERNS.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Map<String, SerializedBody> cache = currentBodies();
+        // Query strings are not part of the key, these endpoints take none
+        String key = request.getRequestURI();
+        SerializedBody body = cache.get(key);
+        if (body == null) {
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(request, wrapper);
+            byte[] json = wrapper.getContentAsByteArray();
+            if (wrapper.getStatus() != HttpServletResponse.SC_OK || json.length == 0) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+            body = SerializedBody.of(json, wrapper.getContentType());
+            cache.put(key, body);
+            wrapper.resetBuffer();
+        } else if (!corsProcessor.processRequest(handlerMappingIntrospector.getCorsConfiguration(request), request, response)) {
+            // Rejected cross-origin request, the processor already wrote the 403
+            return;
+        }
+        write(request, response, body);
+    }
+
+    private Map<String, SerializedBody> currentBodies() {
+        long version = geoCatalog.getVersion();
+        Bodies current = bodies;
+        if (current.version != version) {
+            current = new Bodies(version);
+            bodies = current;
+            log.info("Reference data response cache reset version={}", version);
+        }
+        return current.byPath;
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response, SerializedBody body) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, body.etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // Added rather than set, the CORS processing may already have varied on Origin
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), body.etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(body.contentType);
+        byte[] bytes = body.json;
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains(GZIP)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            bytes = body.gzip;
+        }
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Bodies {
+
+        private final long version;
+        private final Map<String, SerializedBody> byPath = new ConcurrentHashMap<>();
+
+        private Bodies(long version) {
+            this.version = version;
+        }
+    }
+
+    private static final class SerializedBody {
+
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        private final String contentType;
+
+        private SerializedBody(byte[] json, byte[] gzip, String etag, String contentType) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+            this.contentType = contentType;
+        }
+
+        private static SerializedBody of(byte[] json, String contentType) throws IOException {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            String etag;
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+                StringBuilder hex = new StringBuilder(34).append('"');
+                for (int i = 0; i < 16; i++) {
+                    hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+                }
+                etag = hex.append('"').toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            return new SerializedBody(json, compressed.toByteArray(), etag, contentType);
+        }
+    }
+}
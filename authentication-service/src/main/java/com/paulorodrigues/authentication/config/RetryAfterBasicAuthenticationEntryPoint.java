@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import com.paulorodrigues.authentication.commons.exception.ServiceUnavailableException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+
+import java.io.IOException;
+
+/**
+ * Basic challenge, except when authentication failed because the password hashing pool was full:
+ * that answers 503 with Retry-After, as {@link RestExceptionHandler} does for the controllers.
+ *
+ * @author paulo.rodrigues
+ */
+@Log4j2
+public class RetryAfterBasicAuthenticationEntryPoint extends BasicAuthenticationEntryPoint {
+
+    public RetryAfterBasicAuthenticationEntryPoint(String realmName) {
+        setRealmName(realmName);
+    }
+
+    @Override
+    public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) throws IOException {
+        ServiceUnavailableException unavailable = findServiceUnavailable(authException);
+        if (unavailable == null) {
+            super.commence(request, response, authException);
+            return;
+        }
+        log.warn("Service unavailable retryAfterSeconds={}, message={}", unavailable.getRetryAfterSeconds(), unavailable.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(unavailable.getRetryAfterSeconds()));
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), unavailable.getMessage());
+    }
+
+    private static ServiceUnavailableException findServiceUnavailable(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServiceUnavailableException) {
+                return (ServiceUnavailableException) cause;
+            }
+        }
+        return null;
+    }
+}
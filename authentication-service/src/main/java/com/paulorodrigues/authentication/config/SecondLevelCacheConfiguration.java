@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache for the read-mostly reference entities (countries, states,
+ * cities, roles) plus the query cache, kept in-process by Caffeine through JCache. Every region
+ * is created here with its own size bound, so a region missing from this list fails fast.
+ * The cache manager is owned by this class rather than published as a bean, so it never becomes
+ * the Spring cache abstraction's manager by accident.
+ *
+ * @author paulo.rodrigues
+ */
+@Configuration
+@Log4j2
+public class SecondLevelCacheConfiguration {
+
+    public static final String COUNTRY_REGION = "reference.country";
+    public static final String STATE_REGION = "reference.state";
+    public static final String CITY_REGION = "reference.city";
+    public static final String ROLE_REGION = "reference.role";
+    public static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    public static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    public static final List<String> REGIONS = List.of(COUNTRY_REGION, STATE_REGION, CITY_REGION, ROLE_REGION,
+            QUERY_RESULTS_REGION, UPDATE_TIMESTAMPS_REGION);
+
+    @Value("${auth.l2-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Hibernate statistics are session-factory wide: every statement, flush and load pays for them,
+     * not only the cache regions. Off by default; turn on to publish the {@code hibernate.l2.*} meters.
+     */
+    @Value("${auth.l2-cache.statistics:false}")
+    private boolean statistics;
+
+    @Value("${auth.l2-cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${auth.l2-cache.country.max-entries:500}")
+    private long maxCountries;
+
+    @Value("${auth.l2-cache.state.max-entries:2000}")
+    private long maxStates;
+
+    @Value("${auth.l2-cache.city.max-entries:10000}")
+    private long maxCities;
+
+    @Value("${auth.l2-cache.role.max-entries:50}")
+    private long maxRoles;
+
+    @Value("${auth.l2-cache.query.max-entries:1000}")
+    private long maxQueryResults;
+
+    private CacheManager cacheManager;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> {
+            properties.put("hibernate.generate_statistics", statistics);
+            if (!enabled) {
+                properties.put("hibernate.cache.use_second_level_cache", false);
+                return;
+            }
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.use_query_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", cacheManager());
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            properties.put("jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        };
+    }
+
+    private synchronized CacheManager cacheManager() {
+        if (cacheManager == null) {
+            CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                    .getCacheManager(URI.create("hibernate-l2"), getClass().getClassLoader());
+            manager.createCache(COUNTRY_REGION, region(maxCountries, ttlSeconds));
+            manager.createCache(STATE_REGION, region(maxStates, ttlSeconds));
+            manager.createCache(CITY_REGION, region(maxCities, ttlSeconds));
+            manager.createCache(ROLE_REGION, region(maxRoles, ttlSeconds));
+            manager.createCache(QUERY_RESULTS_REGION, region(maxQueryResults, ttlSeconds));
+            // Timestamps must outlive every cached query result, otherwise stale results could be served
+            manager.createCache(UPDATE_TIMESTAMPS_REGION, region(0, 0));
+            cacheManager = manager;
+            log.info("Second-level cache regions created regions={}", REGIONS);
+        }
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maxEntries > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        if (ttlSeconds > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+        return configuration;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+    }
+}
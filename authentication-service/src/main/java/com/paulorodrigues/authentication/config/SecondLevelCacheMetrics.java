@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes hit, miss and put counts plus the in-memory size of every second-level cache
+ * region as {@code hibernate.l2.*} meters tagged by region. Nothing is registered unless
+ * {@code auth.l2-cache.statistics} is on, so a dashboard never shows counters stuck at zero.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class SecondLevelCacheMetrics {
+
+    private static final String METRIC_PREFIX = "hibernate.l2";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void register() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            log.info("Second-level cache meters disabled, set auth.l2-cache.statistics=true to publish them");
+            return;
+        }
+        for (String region : SecondLevelCacheConfiguration.REGIONS) {
+            counter(region, "hits", statistics, CacheRegionStatistics::getHitCount);
+            counter(region, "misses", statistics, CacheRegionStatistics::getMissCount);
+            counter(region, "puts", statistics, CacheRegionStatistics::getPutCount);
+            Gauge.builder(METRIC_PREFIX + ".size", statistics, stats -> value(stats, region, CacheRegionStatistics::getElementCountInMemory))
+                    .tag("region", region)
+                    .register(meterRegistry);
+        }
+    }
+
+    private void counter(String region, String name, Statistics statistics, ToDoubleFunction<CacheRegionStatistics> metric) {
+        FunctionCounter.builder(METRIC_PREFIX + "." + name, statistics, stats -> value(stats, region, metric))
+                .tag("region", region)
+                .register(meterRegistry);
+    }
+
+    private static double value(Statistics statistics, String region, ToDoubleFunction<CacheRegionStatistics> metric) {
+        if (!statistics.isStatisticsEnabled()) {
+            return 0;
+        }
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        return regionStatistics == null ? 0 : metric.applyAsDouble(regionStatistics);
+    }
+}
@@ -1,9 +1,12 @@
 package com.paulorodrigues.authentication.config;
 
 import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -12,29 +15,42 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
-
-import static org.springframework.security.config.Customizer.withDefaults;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true, securedEnabled = true, jsr250Enabled = true)
 public class SecurityConfiguration {
 
+    private static final String BASIC_REALM = "Realm";
+
     @Value("${basic.user}")
     private String userBasic;
 
     @Value("${basic.password}")
     private String passBasic;
 
+    @Value("${auth.basic-cache.max-size:1000}")
+    private long basicCacheMaxSize;
+
+    @Value("${auth.basic-cache.ttl-seconds:60}")
+    private long basicCacheTtlSeconds;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, LoginThrottleFilter loginThrottleFilter,
+                                           CachedBasicAuthenticationProvider basicAuthenticationProvider,
+                                           ObjectProvider<SignedTokenAuthenticationFilter> signedTokenFilter) throws Exception {
+        http.authenticationProvider(basicAuthenticationProvider);
+        http.addFilterBefore(loginThrottleFilter, BasicAuthenticationFilter.class);
+        signedTokenFilter.ifAvailable(filter -> http.addFilterBefore(filter, BasicAuthenticationFilter.class));
         http.csrf().disable()
                 .authorizeHttpRequests((authz) -> authz
                         .requestMatchers(ConstantsUtil.AUTH_BASE_API + "/**").permitAll()
+                        .requestMatchers(ConstantsUtil.AUTHENTICATIONS_V1_BASE_API + ConstantsUtil.TOKEN_PATH).permitAll()
                         .anyRequest()
                         .authenticated()
                 )
-                .httpBasic(withDefaults());
+                .httpBasic(basic -> basic.authenticationEntryPoint(new RetryAfterBasicAuthenticationEntryPoint(BASIC_REALM)));
         return http.build();
     }
 
@@ -48,6 +64,13 @@ public class SecurityConfiguration {
         return new InMemoryUserDetailsManager(user);
     }
 
+    @Bean
+    public CachedBasicAuthenticationProvider basicAuthenticationProvider(InMemoryUserDetailsManager userDetailsService, MeterRegistry meterRegistry) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        return new CachedBasicAuthenticationProvider(provider, basicCacheMaxSize, basicCacheTtlSeconds, meterRegistry);
+    }
+
     @Bean
     public WebSecurityCustomizer webSecurityCustomizer() {
         return (web) -> web.ignoring().requestMatchers("/js/**", "/images/**");
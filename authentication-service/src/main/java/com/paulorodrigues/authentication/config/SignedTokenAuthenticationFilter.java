@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import com.paulorodrigues.authentication.commons.model.RoleDTO;
+import com.paulorodrigues.authentication.commons.model.Token;
+import com.paulorodrigues.authentication.commons.model.UserDTO;
+import com.paulorodrigues.authentication.user.service.AuthorityRegistry;
+import com.paulorodrigues.authentication.user.service.SignedTokenService;
+import com.paulorodrigues.authentication.user.service.TokenRevocationIndex;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+/**
+ * Authenticates Bearer tokens locally against {@link SignedTokenService}. Enabled with auth.token.mode=signed.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "auth.token.mode", havingValue = "signed")
+public class SignedTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Autowired
+    private SignedTokenService signedTokenService;
+
+    @Autowired
+    private TokenRevocationIndex tokenRevocationIndex;
+
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+            String tokenValue = authHeader.substring(BEARER_PREFIX.length()).trim();
+            try {
+                if (tokenRevocationIndex.isRevoked(tokenValue)) {
+                    throw new InvalidTokenException("Token revoked");
+                }
+                Token token = signedTokenService.verify(tokenValue);
+                UserDTO principal = UserDTO.builder()
+                        .username(token.getUserName())
+                        .roles(token.getRoles().stream().map(role -> RoleDTO.builder().name(role).build()).collect(Collectors.toList()))
+                        .build();
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null,
+                        authorityRegistry.authoritiesForNames(token.getRoles()));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } catch (InvalidTokenException e) {
+                log.info("Rejected bearer token message={}", e.getMessage());
+                SecurityContextHolder.clearContext();
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
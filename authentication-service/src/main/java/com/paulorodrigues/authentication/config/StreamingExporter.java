@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paulorodrigues.authentication.commons.enums.ExportFormat;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a repository stream straight to the response as NDJSON or CSV. Rows are read inside a
+ * read-only transaction through a server-side cursor (the repository sets the fetch size) and
+ * the persistence context is cleared every {@code auth.export.clear-every} rows, so heap use
+ * does not grow with the number of rows exported. {@link AsyncRequestConfiguration} sets how long
+ * a download may run.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class StreamingExporter {
+
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${auth.export.clear-every:500}")
+    private int clearEvery;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public StreamingExporter(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Response streaming every row of {@code rows} mapped by {@code toDTO}; {@code columns} are
+     * the CSV columns in order, unused for NDJSON.
+     */
+    public <E, D> ResponseEntity<StreamingResponseBody> export(String name, ExportFormat format, Supplier<Stream<E>> rows,
+                                                               Function<E, D> toDTO, LinkedHashMap<String, Function<D, Object>> columns) {
+        StreamingResponseBody body = out -> readOnlyTransaction.executeWithoutResult(status -> {
+            long start = System.currentTimeMillis();
+            long count = 0;
+            try (Stream<E> stream = rows.get()) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                if (format == ExportFormat.CSV) {
+                    writeCsvLine(writer, columns.keySet());
+                }
+                Iterator<E> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    D dto = toDTO.apply(iterator.next());
+                    if (format == ExportFormat.CSV) {
+                        List<Object> values = new ArrayList<>(columns.size());
+                        for (Function<D, Object> column : columns.values()) {
+                            values.add(column.apply(dto));
+                        }
+                        writeCsvLine(writer, values);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(dto));
+                        writer.write('\n');
+                    }
+                    if (++count % clearEvery == 0) {
+                        writer.flush();
+                        entityManager.clear();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.info("Exported name={}, format={}, rows={}, elapsedMillis={}", name, format, count, System.currentTimeMillis() - start);
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+
+    private static void writeCsvLine(Writer writer, Iterable<?> values) throws IOException {
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write(csvField(value));
+        }
+        writer.write("\r\n");
+    }
+
+    static String csvField(Object value) {
+        if (Objects.isNull(value)) {
+            return "";
+        }
+        String text = value.toString();
+        // Spreadsheets evaluate a cell starting with one of these as a formula; a leading quote
+        // keeps user-supplied text as text. Numbers are written as they are.
+        if (!(value instanceof Number) && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,6 +1,7 @@
 package com.paulorodrigues.authentication.person.controller;
 
 
+import com.paulorodrigues.authentication.commons.enums.ExportFormat;
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.exception.NotFoundException;
 import com.paulorodrigues.authentication.commons.exception.ValidationException;
@@ -15,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Comparator;
 import java.util.HashMap;
@@ -44,7 +46,7 @@ public class PersonController implements PersonResource {
         }
     }
 
-    public ResponseEntity<PersonResponse> findByQueryPageable(@RequestBody PersonRequest personRequest) {
+    public ResponseEntity<PersonResponse> findByQueryPageable(@RequestBody PersonRequest personRequest) throws InvalidRequestException {
         try {
             return ResponseEntity.ok().body(personService.findByQueryPageable(personRequest));
         } catch (Exception e) {
@@ -54,6 +56,16 @@ public class PersonController implements PersonResource {
         }
     }
 
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) throws InvalidRequestException {
+        try {
+            return personService.export(ExportFormat.of(format));
+        } catch (Exception e) {
+            log.error("Exception on export format={}, message={}", format, e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
     public ResponseEntity<PersonDTO> findById(@PathVariable(value = "id") Long personId) throws NotFoundException {
         try {
             return ResponseEntity.ok().body(personService.findByIdDTO(personId));
@@ -26,6 +26,7 @@ import com.paulorodrigues.authentication.commons.model.PersonDTO;
 import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
 import com.paulorodrigues.authentication.commons.util.FormatUtil;
 import com.paulorodrigues.authentication.commons.util.MessageUtil;
+import com.paulorodrigues.authentication.person.service.PersonSearchListener;
 import io.micrometer.common.util.StringUtils;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -46,6 +47,19 @@ import static com.paulorodrigues.authentication.commons.util.FormatUtil.removeLa
  * @author paulo.rodrigues
  */
 @Entity
+@EntityListeners(PersonSearchListener.class)
+@NamedEntityGraph(name = Person.LISTING_GRAPH,
+        attributeNodes = {
+            @NamedAttributeNode(value = "address", subgraph = "address"),
+            @NamedAttributeNode(value = "birthCity", subgraph = "city"),
+            @NamedAttributeNode("birthCountry")},
+        subgraphs = {
+            @NamedSubgraph(name = "address", attributeNodes = @NamedAttributeNode(value = "city", subgraph = "city")),
+            @NamedSubgraph(name = "city", attributeNodes = {
+                @NamedAttributeNode(value = "state", subgraph = "state"),
+                @NamedAttributeNode("country")}),
+            @NamedSubgraph(name = "state", attributeNodes = @NamedAttributeNode("country"))
+})
 @Table(
         uniqueConstraints = {
             @UniqueConstraint(name = "unique_cpf", columnNames = "cpf")},
@@ -60,6 +74,11 @@ public class Person implements Serializable {
     
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Everything {@link #toDTO()} reads, fetched with the person in a single statement.
+     */
+    public static final String LISTING_GRAPH = "Person.listing";
+
     @SequenceGenerator(name = "SEQ_PERSON", allocationSize = 1, sequenceName = "person_id_seq")
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SEQ_PERSON")
     @Id
@@ -149,10 +168,10 @@ public class Person implements Serializable {
                 .email(email)
                 .cpf(cpf)
                 .gender(gender)
-                .address(address.toDTO())
+                .address(Objects.isNull(address) ? null : address.toDTO())
                 .birthdate(birthdate)
-                .birthCity(birthCity.toDTO())
-                .birthCountry(birthCountry.toDTO())
+                .birthCity(Objects.isNull(birthCity) ? null : birthCity.toDTO())
+                .birthCountry(Objects.isNull(birthCountry) ? null : birthCountry.toDTO())
                 .build();
     }
 
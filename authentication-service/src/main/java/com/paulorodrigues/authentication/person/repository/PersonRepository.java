@@ -1,26 +1,51 @@
 package com.paulorodrigues.authentication.person.repository;
 
+import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
 import com.paulorodrigues.authentication.person.entity.Person;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
 
-    @Query("SELECT s "
-            + " FROM Person p "
-            + " WHERE (:id IS NULL OR p.id = :id) "
-            + " AND (:name IS NULL OR :name = '' OR LOWER(s.firstName) LIKE LOWER(CONCAT('%',:name,'%')) OR LOWER(s.lastName) LIKE LOWER(CONCAT('%',:name,'%'))) "
+    @Override
+    @EntityGraph(Person.LISTING_GRAPH)
+    List<Person> findAll();
+
+    @Override
+    @EntityGraph(Person.LISTING_GRAPH)
+    List<Person> findAllById(Iterable<Long> ids);
+
+    String FILTER = "(:id IS NULL OR p.id = :id) "
+            + " AND (:name IS NULL OR :name = '' OR LOWER(p.firstName) LIKE LOWER(CONCAT('%',:name,'%')) OR LOWER(p.lastName) LIKE LOWER(CONCAT('%',:name,'%'))) "
             + " AND (:email IS NULL OR :email = '' OR p.email LIKE CONCAT('%',:email,'%')) "
             + " AND (:cpf IS NULL OR :cpf = '' OR p.cpf LIKE CONCAT('%',:cpf,'%')) "
-            + " AND (:sex IS NULL OR :sex = '' OR p.sex LIKE CONCAT('%',:sex,'%')) "
-            + " AND ((coalesce(:startDate, null) is null AND coalesce(:endDate, null) is null) OR (p.birthdate BETWEEN :startDate AND :endDate)) ")
+            + " AND (:sex IS NULL OR :sex = '' OR str(p.gender) LIKE CONCAT('%',:sex,'%')) "
+            + " AND ((coalesce(:startDate, null) is null AND coalesce(:endDate, null) is null) OR (p.birthdate BETWEEN :startDate AND :endDate)) ";
+
+    /**
+     * {@link Person#LISTING_GRAPH} as fetch joins on {@code p}, for queries built outside Spring Data.
+     */
+    String LISTING_FETCHES = "LEFT JOIN FETCH p.address pa LEFT JOIN FETCH pa.city pac "
+            + " LEFT JOIN FETCH pac.state pas LEFT JOIN FETCH pas.country LEFT JOIN FETCH pac.country "
+            + " LEFT JOIN FETCH p.birthCity pbc LEFT JOIN FETCH pbc.state pbs LEFT JOIN FETCH pbs.country "
+            + " LEFT JOIN FETCH pbc.country LEFT JOIN FETCH p.birthCountry ";
+
+    @EntityGraph(Person.LISTING_GRAPH)
+    @Query("SELECT p FROM Person p WHERE " + FILTER)
     Page<Person> findByFilterPageable(
             @Param("id") Long id,
             @Param("name") String name,
@@ -31,11 +56,63 @@ public interface PersonRepository extends JpaRepository<Person, Long> {
             @Param("endDate") LocalDate endDate,
             Pageable pageable);
 
-    @Query("SELECT s "
+    @EntityGraph(Person.LISTING_GRAPH)
+    @Query("SELECT p FROM Person p WHERE " + FILTER)
+    Slice<Person> findSliceByFilter(
+            @Param("id") Long id,
+            @Param("name") String name,
+            @Param("email") String email,
+            @Param("cpf") String cpf,
+            @Param("sex") String sex,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            Pageable pageable);
+
+    @EntityGraph(Person.LISTING_GRAPH)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ConstantsUtil.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")})
+    @Query("SELECT p FROM Person p ORDER BY p.firstName, p.id")
+    Stream<Person> streamAllForExport();
+
+    @Query("SELECT COUNT(p) FROM Person p WHERE " + FILTER)
+    long countFiltered(
+            @Param("id") Long id,
+            @Param("name") String name,
+            @Param("email") String email,
+            @Param("cpf") String cpf,
+            @Param("sex") String sex,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @EntityGraph(Person.LISTING_GRAPH)
+    @Query("SELECT p "
             + " FROM Person p "
             + " WHERE (:name IS NULL OR :name = '' OR"
             + " LOWER(p.firstName) LIKE LOWER(CONCAT('%',:name,'%')) OR "
             + " LOWER(p.lastName) LIKE LOWER(CONCAT('%',:name,'%'))) ")
     Page<Person> findByName(@Param("name") String name,
                             Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.firstName AS firstName, p.lastName AS lastName, p.nickName AS nickName, "
+            + " p.email AS email, p.cpf AS cpf "
+            + " FROM Person p "
+            + " WHERE p.id > :afterId "
+            + " ORDER BY p.id ")
+    List<PersonSearchRow> findSearchRows(@Param("afterId") long afterId, Pageable pageable);
+
+    interface PersonSearchRow {
+        Long getId();
+
+        String getFirstName();
+
+        String getLastName();
+
+        String getNickName();
+
+        String getEmail();
+
+        String getCpf();
+    }
 }
@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.person.service;
+
+import com.paulorodrigues.authentication.person.repository.PersonRepository;
+import com.paulorodrigues.authentication.person.repository.PersonRepository.PersonSearchRow;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.foldForSearch;
+
+/**
+ * In-process inverted index over people: first name, last name, nickname, e-mail and CPF are
+ * accent-folded into terms, each with a sorted posting list of person ids.
+ * <p>
+ * Every query term must match. A term matches exactly, as a prefix, or within a small edit
+ * distance, scoring 3, 2 and 1 respectively. People are ranked by total score, then by id.
+ * <p>
+ * The bulk of the index is an immutable segment built from the database at startup and on a
+ * schedule. Saves and deletes after that go to a small change log: the person's entry in the
+ * segment is masked and the current terms are indexed on the side. A rebuild folds the change
+ * log into a new segment, keeping changes that raced with it.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class PersonSearchIndex {
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int FUZZY = 1;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Value("${auth.person-search.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    @Value("${auth.person-search.max-prefix-expansions:64}")
+    private int maxPrefixExpansions;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object writeLock = new Object();
+    private volatile State state = new State(Segment.EMPTY);
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${auth.person-search.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${auth.person-search.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long startSequence = sequence.get();
+        Segment segment = load();
+        synchronized (writeLock) {
+            State next = new State(segment);
+            state.changes.forEach((id, change) -> {
+                if (change.sequence > startSequence) {
+                    next.apply(id, change);
+                }
+            });
+            state = next;
+        }
+        log.info("Person search index rebuilt people={}, terms={}, elapsedMillis={}",
+                segment.documents, segment.terms.length, System.currentTimeMillis() - start);
+    }
+
+    public void upsert(long personId, String firstName, String lastName, String nickName, String email, String cpf) {
+        String[] terms = terms(firstName, lastName, nickName, email, cpf);
+        synchronized (writeLock) {
+            state.apply(personId, new Change(sequence.incrementAndGet(), terms));
+        }
+    }
+
+    public void remove(long personId) {
+        synchronized (writeLock) {
+            state.apply(personId, new Change(sequence.incrementAndGet(), null));
+        }
+    }
+
+    /**
+     * Ids of the people matching every term of {@code query}, best first, for the requested page.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return new SearchResult(Collections.emptyList(), 0);
+        }
+        State current = state;
+        Map<Long, Integer> scores = null;
+        for (String queryTerm : queryTerms) {
+            Map<Long, Integer> termScores = match(current, queryTerm);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<Long, Integer> both = new HashMap<>();
+                Map<Long, Integer> previous = scores;
+                termScores.forEach((id, score) -> {
+                    Integer earlier = previous.get(id);
+                    if (earlier != null) {
+                        both.put(id, earlier + score);
+                    }
+                });
+                scores = both;
+            }
+            if (scores.isEmpty()) {
+                return new SearchResult(Collections.emptyList(), 0);
+            }
+        }
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<Long> ids = new ArrayList<>();
+        for (int i = offset; i < ranked.size() && ids.size() < limit; i++) {
+            ids.add(ranked.get(i).getKey());
+        }
+        return new SearchResult(ids, ranked.size());
+    }
+
+    private Map<Long, Integer> match(State current, String queryTerm) {
+        Map<Long, Integer> scores = new HashMap<>();
+        Segment segment = current.segment;
+        int from = lowerBound(segment.terms, queryTerm);
+        int expansions = 0;
+        for (int i = from; i < segment.terms.length && segment.terms[i].startsWith(queryTerm); i++) {
+            boolean exact = segment.terms[i].length() == queryTerm.length();
+            if (!exact && (queryTerm.length() < 2 || ++expansions > maxPrefixExpansions)) {
+                continue;
+            }
+            collect(current, segment.postings[i], exact ? EXACT : PREFIX, scores);
+        }
+        int maxDistance = maxDistance(queryTerm);
+        if (maxDistance > 0) {
+            // Typos are looked for among terms sharing the first letter only
+            String first = queryTerm.substring(0, 1);
+            for (int i = lowerBound(segment.terms, first); i < segment.terms.length && segment.terms[i].startsWith(first); i++) {
+                String term = segment.terms[i];
+                if (!term.startsWith(queryTerm) && withinDistance(queryTerm, term, maxDistance)) {
+                    collect(current, segment.postings[i], FUZZY, scores);
+                }
+            }
+        }
+        // The delta is sorted too, so it is range-scanned the same way
+        for (Map.Entry<String, Set<Long>> entry : current.delta.tailMap(queryTerm, true).entrySet()) {
+            String term = entry.getKey();
+            if (!term.startsWith(queryTerm)) {
+                break;
+            }
+            boolean exact = term.length() == queryTerm.length();
+            if (exact || queryTerm.length() >= 2) {
+                collect(entry.getValue(), exact ? EXACT : PREFIX, scores);
+            }
+        }
+        if (maxDistance > 0) {
+            String first = queryTerm.substring(0, 1);
+            for (Map.Entry<String, Set<Long>> entry : current.delta.tailMap(first, true).entrySet()) {
+                String term = entry.getKey();
+                if (!term.startsWith(first)) {
+                    break;
+                }
+                if (!term.startsWith(queryTerm) && withinDistance(queryTerm, term, maxDistance)) {
+                    collect(entry.getValue(), FUZZY, scores);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void collect(State current, long[] postings, int score, Map<Long, Integer> scores) {
+        for (long id : postings) {
+            if (!current.changes.containsKey(id)) {
+                scores.merge(id, score, Math::max);
+            }
+        }
+    }
+
+    private static void collect(Set<Long> ids, int score, Map<Long, Integer> scores) {
+        for (Long id : ids) {
+            scores.merge(id, score, Math::max);
+        }
+    }
+
+    private static int maxDistance(String queryTerm) {
+        if (queryTerm.length() >= 8) {
+            return 2;
+        }
+        return queryTerm.length() >= 4 ? 1 : 0;
+    }
+
+    /**
+     * Levenshtein distance no larger than {@code max}, giving up as soon as a row exceeds it.
+     */
+    static boolean withinDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return false;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= max;
+    }
+
+    private Segment load() {
+        Map<String, LongList> postings = new HashMap<>();
+        long afterId = 0;
+        int documents = 0;
+        List<PersonSearchRow> batch;
+        do {
+            batch = personRepository.findSearchRows(afterId, PageRequest.of(0, loadBatchSize));
+            for (PersonSearchRow row : batch) {
+                // Rows arrive in id order, so every posting list comes out sorted
+                for (String term : terms(row.getFirstName(), row.getLastName(), row.getNickName(), row.getEmail(), row.getCpf())) {
+                    postings.computeIfAbsent(term, key -> new LongList()).add(row.getId());
+                }
+                afterId = row.getId();
+                documents++;
+            }
+        } while (batch.size() == loadBatchSize);
+        String[] terms = postings.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        long[][] lists = new long[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            lists[i] = postings.get(terms[i]).toArray();
+        }
+        return new Segment(terms, lists, documents);
+    }
+
+    static String[] terms(String firstName, String lastName, String nickName, String email, String cpf) {
+        Set<String> terms = new LinkedHashSet<>();
+        terms.addAll(tokenize(firstName));
+        terms.addAll(tokenize(lastName));
+        terms.addAll(tokenize(nickName));
+        terms.addAll(tokenize(email));
+        if (Objects.nonNull(cpf)) {
+            String digits = cpf.replaceAll("\\D", "");
+            if (!digits.isEmpty()) {
+                terms.add(digits);
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+
+    private static List<String> tokenize(String value) {
+        String folded = foldForSearch(value);
+        if (folded.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : folded.split("[^a-z0-9]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static final class SearchResult {
+
+        private final List<Long> ids;
+        private final long total;
+
+        private SearchResult(List<Long> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * The immutable segment plus the changes made since it was built. {@code changes} masks the
+     * segment's postings of every changed person; {@code delta} indexes their current terms,
+     * kept sorted like the segment's so a query reads only the terms sharing its first letter.
+     */
+    private static final class State {
+
+        private final Segment segment;
+        private final Map<Long, Change> changes = new ConcurrentHashMap<>();
+        private final NavigableMap<String, Set<Long>> delta = new ConcurrentSkipListMap<>();
+
+        private State(Segment segment) {
+            this.segment = segment;
+        }
+
+        private void apply(long id, Change change) {
+            Change previous = changes.put(id, change);
+            if (previous != null && previous.terms != null) {
+                for (String term : previous.terms) {
+                    delta.computeIfPresent(term, (key, ids) -> {
+                        ids.remove(id);
+                        return ids.isEmpty() ? null : ids;
+                    });
+                }
+            }
+            if (change.terms != null) {
+                for (String term : change.terms) {
+                    delta.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(id);
+                }
+            }
+        }
+    }
+
+    private static final class Change {
+
+        private final long sequence;
+        private final String[] terms;
+
+        private Change(long sequence, String[] terms) {
+            this.sequence = sequence;
+            this.terms = terms;
+        }
+    }
+
+    private static final class Segment {
+
+        private static final Segment EMPTY = new Segment(new String[0], new long[0][], 0);
+
+        private final String[] terms;
+        private final long[][] postings;
+        private final int documents;
+
+        private Segment(String[] terms, long[][] postings, int documents) {
+            this.terms = terms;
+            this.postings = postings;
+            this.documents = documents;
+        }
+    }
+
+    private static final class LongList {
+
+        private long[] values = new long[2];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.person.service;
+
+import com.paulorodrigues.authentication.address.service.AfterCommit;
+import com.paulorodrigues.authentication.person.entity.Person;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link Person} that reindexes the person in {@link PersonSearchIndex}
+ * after each committed save or delete.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+public class PersonSearchListener {
+
+    @Autowired
+    @Lazy
+    private PersonSearchIndex personSearchIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Person person) {
+        long personId = person.getId();
+        String firstName = person.getFirstName();
+        String lastName = person.getLastName();
+        String nickName = person.getNickName();
+        String email = person.getEmail();
+        String cpf = person.getCpf();
+        AfterCommit.run(() -> personSearchIndex.upsert(personId, firstName, lastName, nickName, email, cpf));
+    }
+
+    @PostRemove
+    public void onRemove(Person person) {
+        long personId = person.getId();
+        AfterCommit.run(() -> personSearchIndex.remove(personId));
+    }
+}
@@ -1,6 +1,8 @@
 package com.paulorodrigues.authentication.person.service;
 
 import com.paulorodrigues.authentication.address.service.AddressService;
+import com.paulorodrigues.authentication.commons.enums.CountMode;
+import com.paulorodrigues.authentication.commons.enums.ExportFormat;
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.exception.NotFoundException;
 import com.paulorodrigues.authentication.commons.exception.ValidationException;
@@ -9,9 +11,14 @@ import com.paulorodrigues.authentication.commons.model.PersonDTO;
 import com.paulorodrigues.authentication.commons.model.PersonQuery;
 import com.paulorodrigues.authentication.commons.model.PersonRequest;
 import com.paulorodrigues.authentication.commons.model.PersonResponse;
+import com.paulorodrigues.authentication.commons.util.KeysetQuery;
 import com.paulorodrigues.authentication.commons.util.MessageUtil;
+import com.paulorodrigues.authentication.config.PageCountEstimator;
+import com.paulorodrigues.authentication.config.StreamingExporter;
 import com.paulorodrigues.authentication.person.entity.Person;
 import com.paulorodrigues.authentication.person.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.extern.log4j.Log4j2;
 import org.apache.logging.log4j.util.Strings;
 import org.modelmapper.ModelMapper;
@@ -19,12 +26,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.paulorodrigues.authentication.commons.util.FormatUtil.buildPageable;
 import static com.paulorodrigues.authentication.commons.util.FormatUtil.removeFormatCPF;
@@ -33,32 +43,137 @@ import static com.paulorodrigues.authentication.commons.util.FormatUtil.removeFo
 @Service
 @Log4j2
 public class PersonService {
+
+    private static final Map<String, Class<?>> KEYSET_SORT_COLUMNS = Map.of(
+            KeysetQuery.ID_COLUMN, Long.class,
+            "firstName", String.class,
+            "lastName", String.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private PersonRepository personRepository;
 
     @Autowired
     private AddressService addressService;
+
+    @Autowired
+    private PersonSearchIndex personSearchIndex;
+
+    @Autowired
+    private PageCountEstimator pageCountEstimator;
+
+    @Autowired
+    private StreamingExporter streamingExporter;
     
     public List<PersonDTO> findAll() {
         return peopleToDTOs(personRepository.findAll());
     }
 
-    public PersonResponse findByQueryPageable(PersonRequest personRequest) {
+    public PersonResponse findByQueryPageable(PersonRequest personRequest) throws InvalidRequestException {
         PersonQuery personQuery = personRequest.getQuery();
+        if (Objects.nonNull(personQuery.getCursor())) {
+            return findByQueryKeyset(personQuery);
+        }
         Pageable pageable = buildPageable(personQuery);
+        CountMode countMode = Objects.isNull(personQuery.getCountMode()) ? CountMode.EXACT : personQuery.getCountMode();
+        String cpf = removeFormatCPF(personQuery.getCpf());
+
+        if (countMode == CountMode.EXACT) {
+            Page<Person> personPage = personRepository.findByFilterPageable(
+                    personQuery.getId(),
+                    personQuery.getName(),
+                    personQuery.getEmail(),
+                    cpf,
+                    personQuery.getSex(),
+                    personQuery.getStartDate(),
+                    personQuery.getEndDate(),
+                    pageable);
+            return PersonResponse.builder()
+                    .people(peoplePageToDTOs(personPage))
+                    .countMode(countMode)
+                    .hasNext(personPage.hasNext())
+                    .build();
+        }
 
-        Page<Person> personPage = personRepository.findByFilterPageable(
+        Slice<Person> personSlice = personRepository.findSliceByFilter(
                 personQuery.getId(),
                 personQuery.getName(),
                 personQuery.getEmail(),
-                removeFormatCPF(personQuery.getCpf()),
+                cpf,
                 personQuery.getSex(),
                 personQuery.getStartDate(),
                 personQuery.getEndDate(),
                 pageable);
-        
-        
-        return new PersonResponse(peoplePageToDTOs(personPage));
+        long total = pageable.getOffset() + personSlice.getNumberOfElements() + (personSlice.hasNext() ? 1 : 0);
+        if (countMode == CountMode.ESTIMATED) {
+            long estimate = pageCountEstimator.estimate("person", filterParameters(personQuery), () -> personRepository.countFiltered(
+                    personQuery.getId(),
+                    personQuery.getName(),
+                    personQuery.getEmail(),
+                    cpf,
+                    personQuery.getSex(),
+                    personQuery.getStartDate(),
+                    personQuery.getEndDate()));
+            total = Math.max(total, estimate);
+        }
+        return PersonResponse.builder()
+                .people(new PageImpl<>(peopleToDTOs(personSlice.getContent()), pageable, total))
+                .countMode(countMode)
+                .hasNext(personSlice.hasNext())
+                .build();
+    }
+
+    /**
+     * Keyset page of {@link #findByQueryPageable}, sorted by id, first or last name. No count
+     * query runs, so the page carries only its own rows plus the cursor of the next one.
+     */
+    private PersonResponse findByQueryKeyset(PersonQuery personQuery) throws InvalidRequestException {
+        log.info("Finding keyset people by query={}", personQuery);
+        KeysetQuery.Slice<Person> slice = KeysetQuery.fetch(entityManager, Person.class, "p", PersonRepository.LISTING_FETCHES, PersonRepository.FILTER,
+                filterParameters(personQuery), KEYSET_SORT_COLUMNS, personQuery);
+        return PersonResponse.builder()
+                .people(new PageImpl<>(peopleToDTOs(slice.getContent())))
+                .nextCursor(slice.getNextCursor())
+                .countMode(CountMode.NONE)
+                .hasNext(Objects.nonNull(slice.getNextCursor()))
+                .build();
+    }
+
+    /**
+     * Parameters of {@link PersonRepository#FILTER}.
+     */
+    private static Map<String, Object> filterParameters(PersonQuery personQuery) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", personQuery.getId());
+        parameters.put("name", personQuery.getName());
+        parameters.put("email", personQuery.getEmail());
+        parameters.put("cpf", removeFormatCPF(personQuery.getCpf()));
+        parameters.put("sex", personQuery.getSex());
+        parameters.put("startDate", personQuery.getStartDate());
+        parameters.put("endDate", personQuery.getEndDate());
+        return parameters;
+    }
+
+    /**
+     * Every person ordered by first name, streamed with the listing fetch graph.
+     */
+    public ResponseEntity<StreamingResponseBody> export(ExportFormat format) {
+        log.info("Exporting people format={}", format);
+        LinkedHashMap<String, Function<PersonDTO, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", PersonDTO::getId);
+        columns.put("firstName", PersonDTO::getFirstName);
+        columns.put("lastName", PersonDTO::getLastName);
+        columns.put("nickName", PersonDTO::getNickName);
+        columns.put("email", PersonDTO::getEmail);
+        columns.put("cpf", PersonDTO::getCpf);
+        columns.put("gender", PersonDTO::getGender);
+        columns.put("birthdate", PersonDTO::getBirthdate);
+        columns.put("birthCity", person -> Objects.isNull(person.getBirthCity()) ? null : person.getBirthCity().getName());
+        columns.put("birthCountry", person -> Objects.isNull(person.getBirthCountry()) ? null : person.getBirthCountry().getName());
+        columns.put("address", person -> Objects.isNull(person.getAddress()) ? null : person.getAddress().getFmtAddress());
+        return streamingExporter.export("people", format, personRepository::streamAllForExport, Person::toDTO, columns);
     }
 
     public Person findById(Long personId) throws NotFoundException {
@@ -78,8 +193,21 @@ public class PersonService {
         PersonQuery personQuery = personRequest.getQuery();
         log.info("Finding person by name={}", personQuery.getName());
         Pageable pageable = buildPageable(personQuery);
-        Page<Person> personPage = personRepository.findByName(personQuery.getName(), pageable);
-        return new PersonResponse(peoplePageToDTOs(personPage));
+        PersonSearchIndex.SearchResult result = personSearchIndex.search(searchTerm(personQuery),
+                (int) pageable.getOffset(), pageable.getPageSize());
+        Map<Long, Person> people = new HashMap<>();
+        personRepository.findAllById(result.getIds()).forEach(person -> people.put(person.getId(), person));
+        List<Person> ranked = result.getIds().stream()
+                .map(people::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PersonResponse(peoplePageToDTOs(new PageImpl<>(ranked, pageable, result.getTotal())));
+    }
+
+    private static String searchTerm(PersonQuery personQuery) {
+        return Stream.of(personQuery.getFirstName(), personQuery.getLastName())
+                .filter(Strings::isNotBlank)
+                .collect(Collectors.joining(" "));
     }
 
     private void validatePersonRequestFindByName(PersonRequest personRequest) throws InvalidRequestException {
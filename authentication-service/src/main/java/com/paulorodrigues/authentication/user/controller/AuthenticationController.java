@@ -1,16 +1,25 @@
 package com.paulorodrigues.authentication.user.controller;
 
 
+import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
+import com.paulorodrigues.authentication.commons.model.Login;
+import com.paulorodrigues.authentication.commons.model.Token;
 import com.paulorodrigues.authentication.commons.model.UserDTO;
 import com.paulorodrigues.authentication.commons.resource.AuthenticationResource;
+import com.paulorodrigues.authentication.user.service.SignedTokenService;
+import com.paulorodrigues.authentication.user.service.TokenRevocationIndex;
 import jakarta.annotation.Resource;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
 import org.springframework.security.oauth2.provider.token.ConsumerTokenServices;
 import org.springframework.web.bind.annotation.*;
-
-import javax.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  *
@@ -21,19 +30,53 @@ import javax.servlet.http.HttpServletRequest;
 @Log4j2
 public class AuthenticationController implements AuthenticationResource {
 
+    private static final String SIGNED_TOKEN_MODE = "signed";
+
     @Resource(name = "tokenServices")
     ConsumerTokenServices tokenServices;
 
-    public boolean logout(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
+    @Autowired
+    SignedTokenService signedTokenService;
+
+    @Autowired
+    TokenRevocationIndex tokenRevocationIndex;
+
+    @Value("${auth.token.mode:store}")
+    String tokenMode;
+
+    public boolean logout() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        String authHeader = attributes.getRequest().getHeader("Authorization");
         if (authHeader != null) {
             String tokenValue = authHeader.replace("Bearer", "").trim();
             log.info("Logout token={}", tokenValue);
-            tokenServices.revokeToken(tokenValue);
+            revokeLocally(tokenValue);
+            if (!SIGNED_TOKEN_MODE.equals(tokenMode)) {
+                tokenServices.revokeToken(tokenValue);
+            }
         }
         return true;
     }
 
+    private void revokeLocally(String tokenValue) {
+        try {
+            tokenRevocationIndex.revoke(tokenValue, signedTokenService.verify(tokenValue).getExpiresAt());
+        } catch (InvalidTokenException e) {
+            tokenRevocationIndex.revoke(tokenValue);
+        }
+    }
+
+    public ResponseEntity<Token> token(@RequestBody Login login) throws InvalidRequestException {
+        try {
+            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+            return ResponseEntity.ok().body(signedTokenService.issue(login, attributes.getRequest().getRemoteAddr()));
+        } catch (Exception e) {
+            log.error("Exception on token userName={}, message={}", login.getUserName(), e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
     public UserDTO user() {
         return (UserDTO) SecurityContextHolder.getContext()
                 .getAuthentication()
@@ -1,15 +1,21 @@
 package com.paulorodrigues.authentication.user.controller;
 
+import com.paulorodrigues.authentication.commons.enums.CountMode;
+import com.paulorodrigues.authentication.commons.enums.ExportFormat;
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.exception.NotFoundException;
+import com.paulorodrigues.authentication.commons.model.BulkUserResult;
 import com.paulorodrigues.authentication.commons.model.RoleDTO;
 import com.paulorodrigues.authentication.commons.model.UpdatePassword;
 import com.paulorodrigues.authentication.commons.model.UserDTO;
 
 import com.paulorodrigues.authentication.commons.model.UserQuery;
+import com.paulorodrigues.authentication.commons.resource.UserResource;
 import com.paulorodrigues.authentication.commons.util.FormatUtil;
+import com.paulorodrigues.authentication.commons.util.KeysetQuery;
 import com.paulorodrigues.authentication.commons.util.MessageUtil;
 import com.paulorodrigues.authentication.user.entity.User;
+import com.paulorodrigues.authentication.user.service.UserBulkService;
 import com.paulorodrigues.authentication.user.service.UserService;
 
 import lombok.extern.log4j.Log4j2;
@@ -17,12 +23,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -32,19 +39,45 @@ import java.util.stream.Collectors;
  */
 @Log4j2
 @RestController
-@CrossOrigin(origins = {"*"})
+@CrossOrigin(origins = {"*"}, exposedHeaders = {"totalCount", "totalCountEstimated", "hasNext", "nextCursor"})
 
-public class UserController {
+public class UserController implements UserResource {
 
     @Autowired
     private UserService userService;
 
-    public List<UserDTO> findPageable(@RequestBody UserQuery filter, HttpServletRequest req, HttpServletResponse res) {
+    @Autowired
+    private UserBulkService userBulkService;
+
+    public ResponseEntity<List<UserDTO>> findPageable(@RequestBody UserQuery filter) throws InvalidRequestException {
         try {
+            HttpHeaders headers = new HttpHeaders();
+            if (Objects.nonNull(filter.getCursor())) {
+                KeysetQuery.Slice<User> slice = userService.findKeyset(filter);
+                if (Objects.nonNull(slice.getNextCursor())) {
+                    headers.add("nextCursor", slice.getNextCursor());
+                }
+                return ResponseEntity.ok().headers(headers).body(userService.usersToDTOs(slice.getContent()));
+            }
             Pageable pageable = FormatUtil.getPageRequest(filter);
-            Page<User> result = userService.findPageable(filter, pageable);
-            res.addHeader("totalCount", String.valueOf(result.getTotalElements()));
-            return userService.usersToDTOs(result.getContent()).stream().sorted(Comparator.comparing(UserDTO::getUsername)).collect(Collectors.toList());
+            CountMode countMode = Objects.isNull(filter.getCountMode()) ? CountMode.EXACT : filter.getCountMode();
+            List<User> users;
+            if (countMode == CountMode.EXACT || Objects.isNull(pageable)) {
+                Page<User> result = userService.findPageable(filter, pageable);
+                headers.add("totalCount", String.valueOf(result.getTotalElements()));
+                users = result.getContent();
+            } else {
+                Slice<User> result = userService.findSlice(filter, pageable);
+                headers.add("hasNext", String.valueOf(result.hasNext()));
+                if (countMode == CountMode.ESTIMATED) {
+                    long seen = pageable.getOffset() + result.getNumberOfElements() + (result.hasNext() ? 1 : 0);
+                    headers.add("totalCount", String.valueOf(Math.max(seen, userService.estimateCount(filter))));
+                    headers.add("totalCountEstimated", "true");
+                }
+                users = result.getContent();
+            }
+            return ResponseEntity.ok().headers(headers)
+                    .body(userService.usersToDTOs(users).stream().sorted(Comparator.comparing(UserDTO::getUsername)).collect(Collectors.toList()));
         } catch (Exception e) {
             log.error("Exception on findPageable message={}", e.getMessage());
             e.setStackTrace(new StackTraceElement[0]);
@@ -52,6 +85,16 @@ public class UserController {
         }
     }
 
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) throws InvalidRequestException {
+        try {
+            return userService.export(ExportFormat.of(format));
+        } catch (Exception e) {
+            log.error("Exception on export format={}, message={}", format, e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
     public ResponseEntity<UserDTO> getById(@PathVariable(value = "id") Long userId) throws NotFoundException {
         try {
             User user = userService.findById(userId);
@@ -90,6 +133,16 @@ public class UserController {
         }
     }
 
+    public ResponseEntity<List<BulkUserResult>> bulkCreate(@RequestBody List<UserDTO> users) throws InvalidRequestException {
+        try {
+            return ResponseEntity.ok().body(userBulkService.create(users));
+        } catch (Exception e) {
+            log.error("Exception on bulkCreate size={}, message={}", Objects.isNull(users) ? 0 : users.size(), e.getMessage());
+            e.setStackTrace(new StackTraceElement[0]);
+            throw e;
+        }
+    }
+
     public ResponseEntity<UserDTO> update(@PathVariable(value = "id") Long userId, @RequestBody UserDTO userDTO) throws InvalidRequestException, NotFoundException {
         try {
             return ResponseEntity.ok(userService.edit(userId, userDTO));
@@ -17,8 +17,11 @@
 package com.paulorodrigues.authentication.user.entity;
 
 import com.paulorodrigues.authentication.commons.model.RoleDTO;
+import com.paulorodrigues.authentication.config.SecondLevelCacheConfiguration;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 
 /**
@@ -26,6 +29,8 @@ import org.springframework.security.core.GrantedAuthority;
  * @author paulo.rodrigues
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfiguration.ROLE_REGION)
 @Data
 public class Role implements GrantedAuthority {
     
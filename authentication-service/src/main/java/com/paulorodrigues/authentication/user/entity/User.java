@@ -26,12 +26,14 @@ import com.paulorodrigues.authentication.person.entity.Person;
 import groovyjarjarantlr4.v4.runtime.misc.NotNull;
 import io.micrometer.common.util.StringUtils;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -39,13 +41,27 @@ import java.util.stream.Collectors;
  * @author paulo.rodrigues
  */
 @Entity
+@NamedEntityGraph(name = User.EXPORT_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "person", subgraph = "person"),
+        subgraphs = {
+            @NamedSubgraph(name = "person", attributeNodes = {
+                @NamedAttributeNode(value = "address", subgraph = "address"),
+                @NamedAttributeNode(value = "birthCity", subgraph = "city"),
+                @NamedAttributeNode("birthCountry")}),
+            @NamedSubgraph(name = "address", attributeNodes = @NamedAttributeNode(value = "city", subgraph = "city")),
+            @NamedSubgraph(name = "city", attributeNodes = {
+                @NamedAttributeNode(value = "state", subgraph = "state"),
+                @NamedAttributeNode("country")}),
+            @NamedSubgraph(name = "state", attributeNodes = @NamedAttributeNode("country"))
+})
 @Data
 @Builder
 @AllArgsConstructor
 @Table(name="lbs_user", uniqueConstraints = {
-        @UniqueConstraint(name = "unique_cpf", columnNames = "cpf"),
         @UniqueConstraint(name = "unique_username", columnNames = "username")})
 public class User {
+
+    public static final String EXPORT_GRAPH = "User.export";
     
     @Id
     @SequenceGenerator(name = "SEQ_USER", allocationSize = 1, sequenceName = "user_id_seq")
@@ -65,6 +81,7 @@ public class User {
     private Person person;
 
     @ManyToMany(fetch = FetchType.EAGER)
+    @BatchSize(size = ConstantsUtil.FETCH_BATCH_SIZE)
     @JoinTable(name="user_role",
             joinColumns=@JoinColumn(name="user_id"),
             inverseJoinColumns=@JoinColumn(name="role_id")
@@ -105,7 +122,7 @@ public class User {
                 .id(id)
                 .username(username)
                 .password(password)
-                .person(person.toDTO())
+                .person(Objects.isNull(person) ? null : person.toDTO())
                 .roles(roles.stream().map(Role::toDTO).collect(Collectors.toList()))
                 .build();
     }
@@ -18,7 +18,9 @@ package com.paulorodrigues.authentication.user.repository;
 
 
 import com.paulorodrigues.authentication.user.entity.Role;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 /**
  *
@@ -26,6 +28,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface RoleRepository extends JpaRepository<Role, Long> {
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Role findByName(String name);
     
 }
@@ -17,15 +17,24 @@
 package com.paulorodrigues.authentication.user.repository;
 
 
+import com.paulorodrigues.authentication.commons.util.ConstantsUtil;
 import com.paulorodrigues.authentication.user.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  *
@@ -38,11 +47,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
             + " WHERE (:name IS NULL OR :name = '' OR LOWER(c.username) LIKE LOWER(CONCAT('%',:name,'%'))) ")
     List<User> findByName(String name);
     
-    @Query("SELECT c "
-            + " FROM User c "
-            + " WHERE (:id IS NULL OR c.id = :id) "
+    String FILTER = "(:id IS NULL OR c.id = :id) "
             + " AND (:name IS NULL OR :name = '' OR LOWER(c.username) LIKE LOWER(CONCAT('%',:name,'%'))) "
-            + " AND ((coalesce(:startDate, null) is null AND coalesce(:finalDate, null) is null) OR (c.birthdate BETWEEN :startDate AND :finalDate)) ")
+            + " AND ((coalesce(:startDate, null) is null AND coalesce(:finalDate, null) is null) OR (c.createAt BETWEEN :startDate AND :finalDate)) ";
+
+    @Query("SELECT c FROM User c WHERE " + FILTER)
     Page<User> findPageable(
             @Param("id") Long id,
             @Param("name") String name,
@@ -50,7 +59,38 @@ public interface UserRepository extends JpaRepository<User, Long> {
             @Param("finalDate") LocalDate finalDate,
             Pageable page);   
 
+    @Query("SELECT c FROM User c WHERE " + FILTER)
+    Slice<User> findSlice(
+            @Param("id") Long id,
+            @Param("name") String name,
+            @Param("startDate") LocalDate startDate,
+            @Param("finalDate") LocalDate finalDate,
+            Pageable page);
+
+    @Query("SELECT COUNT(c) FROM User c WHERE " + FILTER)
+    long countFiltered(
+            @Param("id") Long id,
+            @Param("name") String name,
+            @Param("startDate") LocalDate startDate,
+            @Param("finalDate") LocalDate finalDate);
+
+    @EntityGraph(User.EXPORT_GRAPH)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ConstantsUtil.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")})
+    @Query("SELECT u FROM User u ORDER BY u.username, u.id")
+    Stream<User> streamAllForExport();
+
     User findByUsername(String username);
 
-    User findByEmail(String usernameLogged);
+    @Query("SELECT u FROM User u WHERE u.person.email = :email")
+    User findByEmail(@Param("email") String email);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
 }
\ No newline at end of file
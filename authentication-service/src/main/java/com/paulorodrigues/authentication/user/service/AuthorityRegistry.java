@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service;
+
+import com.paulorodrigues.authentication.user.entity.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns granted authorities: every distinct combination of role names maps to a single
+ * immutable set, built once and shared by all principals holding that combination.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+public class AuthorityRegistry {
+
+    private final Map<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+    private final Map<List<String>, Set<GrantedAuthority>> combinations = new ConcurrentHashMap<>();
+
+    public Set<GrantedAuthority> authoritiesFor(Collection<Role> roles) {
+        if (Objects.isNull(roles) || roles.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<String> names = new ArrayList<>(roles.size());
+        roles.forEach(role -> names.add(role.getName()));
+        return authoritiesForNames(names);
+    }
+
+    public Set<GrantedAuthority> authoritiesForNames(Collection<String> roleNames) {
+        if (Objects.isNull(roleNames) || roleNames.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<String> key = new ArrayList<>(new TreeSet<>(roleNames));
+        Set<GrantedAuthority> interned = combinations.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        return combinations.computeIfAbsent(List.copyOf(key), this::buildSet);
+    }
+
+    public int size() {
+        return combinations.size();
+    }
+
+    private Set<GrantedAuthority> buildSet(List<String> sortedNames) {
+        Set<GrantedAuthority> set = new LinkedHashSet<>(sortedNames.size());
+        sortedNames.forEach(name -> set.add(authorities.computeIfAbsent(name, SimpleGrantedAuthority::new)));
+        return Collections.unmodifiableSet(set);
+    }
+}
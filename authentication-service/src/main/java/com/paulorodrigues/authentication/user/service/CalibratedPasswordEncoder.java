@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost is chosen at startup to fit a per-hash latency budget on the current host.
+ * Only a stored hash below the upgrade strength is reported as needing an upgrade. That floor comes
+ * from configuration rather than calibration, so nodes calibrated to different costs agree on it
+ * and do not keep rehashing each other's passwords.
+ *
+ * @author paulo.rodrigues
+ */
+@Log4j2
+public class CalibratedPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    private static final int SAMPLES = 3;
+
+    private final int strength;
+    private final int upgradeStrength;
+
+    public CalibratedPasswordEncoder(int strength) {
+        this(strength, strength);
+    }
+
+    public CalibratedPasswordEncoder(int strength, int upgradeStrength) {
+        super(strength);
+        this.strength = strength;
+        this.upgradeStrength = upgradeStrength;
+    }
+
+    /**
+     * Picks the highest cost between the bounds whose hash still fits in {@code targetMillis}.
+     */
+    public static CalibratedPasswordEncoder calibrate(long targetMillis, int minStrength, int maxStrength) {
+        return calibrate(targetMillis, minStrength, maxStrength, minStrength);
+    }
+
+    public static CalibratedPasswordEncoder calibrate(long targetMillis, int minStrength, int maxStrength, int upgradeStrength) {
+        int strength = minStrength;
+        new BCryptPasswordEncoder(minStrength).encode(CALIBRATION_PASSWORD);
+        for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+            long elapsedMillis = measure(new BCryptPasswordEncoder(candidate));
+            log.info("Password hash calibration strength={}, elapsedMillis={}", candidate, elapsedMillis);
+            if (elapsedMillis > targetMillis) {
+                break;
+            }
+            strength = candidate;
+            // Each step doubles the cost, so stop before a sample that can only overshoot
+            if (elapsedMillis * 2 > targetMillis) {
+                break;
+            }
+        }
+        log.info("Password hash strength calibrated strength={}, targetMillis={}, upgradeStrength={}", strength, targetMillis, upgradeStrength);
+        return new CalibratedPasswordEncoder(strength, upgradeStrength);
+    }
+
+    private static long measure(BCryptPasswordEncoder encoder) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public int getUpgradeStrength() {
+        return upgradeStrength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (Objects.isNull(encodedPassword)) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+        return Integer.parseInt(matcher.group(1)) < upgradeStrength;
+    }
+}
@@ -2,61 +2,89 @@ package com.paulorodrigues.authentication.user.service;
 
 import com.paulorodrigues.authentication.user.entity.User;
 import com.paulorodrigues.authentication.user.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.Set;
 
 /**
  *
  * @author paulo.rodrigues
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+@Log4j2
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final AuthorityRegistry authorityRegistry;
+    private final LoginAttemptLimiter loginAttemptLimiter;
 
     @Autowired
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache,
+                                    AuthorityRegistry authorityRegistry, LoginAttemptLimiter loginAttemptLimiter) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.authorityRegistry = authorityRegistry;
+        this.loginAttemptLimiter = loginAttemptLimiter;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cached = userDetailsCache.getUserFromCache(username);
+        if (cached != null) {
+            return cached;
+        }
         User user = userRepository.findByUsername(username);
         if (user == null) {
             throw new UsernameNotFoundException(String.format("Usuário não existe: ", username));
         }
-        return new UserRepositoryUserDetails(user);
+        UserDetails userDetails = new UserRepositoryUserDetails(user, authorityRegistry.authoritiesFor(user.getRoles()), loginAttemptLimiter);
+        userDetailsCache.putUserInCache(userDetails);
+        return userDetails;
+    }
+
+    /**
+     * Stores a hash re-encoded at the current strength after a successful login.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        log.info("Rehashing password username={}", user.getUsername());
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        userDetailsCache.removeUserFromCache(user.getUsername());
+        return loadUserByUsername(user.getUsername());
     }
 
     private final static class UserRepositoryUserDetails extends User implements UserDetails {
 
         private static final long serialVersionUID = 1L;
 
-        private UserRepositoryUserDetails(User user) {
+        private final Set<GrantedAuthority> authorities;
+        private final transient LoginAttemptLimiter loginAttemptLimiter;
+
+        private UserRepositoryUserDetails(User user, Set<GrantedAuthority> authorities, LoginAttemptLimiter loginAttemptLimiter) {
             super(user);
+            this.authorities = authorities;
+            this.loginAttemptLimiter = loginAttemptLimiter;
         }
 
         @Override
         public Collection<? extends GrantedAuthority> getAuthorities() {
-            List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
-            getRoles().forEach(role -> {
-                grantedAuthorities.add(new SimpleGrantedAuthority(role.getName()));
-            });
-            return grantedAuthorities;
+            return authorities;
         }
 
         @Override
         public String getUsername() {
-            return this.getUsername();
+            return super.getUsername();
         }
 
         @Override
@@ -66,7 +94,8 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         @Override
         public boolean isAccountNonLocked() {
-            return true;
+            // Checked by the authentication provider before the password hash is verified
+            return loginAttemptLimiter == null || !loginAttemptLimiter.isUsernameLocked(getUsername());
         }
 
         @Override
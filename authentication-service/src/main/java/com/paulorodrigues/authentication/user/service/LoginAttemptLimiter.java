@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Sliding-window login failure counters by username and by source address.
+ * <p>
+ * Each key keeps exact counts in a small ring of time buckets, so old failures decay as their
+ * bucket leaves the window and one key never inherits another's failures. The keys live in a
+ * bounded cache that drops a key one window after its last failure; a flood of distinct keys
+ * beyond the bound evicts the least recently used ones, which can only under-count them.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class LoginAttemptLimiter {
+
+    private final Cache<String, FailureWindow> byUsername;
+    private final Cache<String, FailureWindow> byAddress;
+    private final int maxUsernameFailures;
+    private final int maxAddressFailures;
+    private final int buckets;
+    private final long bucketMillis;
+
+    private final Counter usernameLocks;
+    private final Counter addressLocks;
+    private final Counter usernameRejections;
+    private final Counter addressRejections;
+
+    @Autowired
+    public LoginAttemptLimiter(@Value("${auth.lockout.max-username-failures:5}") int maxUsernameFailures,
+                               @Value("${auth.lockout.max-address-failures:50}") int maxAddressFailures,
+                               @Value("${auth.lockout.window-seconds:900}") long windowSeconds,
+                               @Value("${auth.lockout.buckets:6}") int buckets,
+                               @Value("${auth.lockout.max-tracked-keys:100000}") long maxTrackedKeys,
+                               MeterRegistry meterRegistry) {
+        this.buckets = buckets;
+        this.bucketMillis = Math.max(1000, windowSeconds * 1000 / buckets);
+        this.byUsername = newCounters(maxTrackedKeys, windowSeconds);
+        this.byAddress = newCounters(maxTrackedKeys, windowSeconds);
+        this.maxUsernameFailures = maxUsernameFailures;
+        this.maxAddressFailures = maxAddressFailures;
+        this.usernameLocks = Counter.builder("auth.lockout.locks").tag("dimension", "username").register(meterRegistry);
+        this.addressLocks = Counter.builder("auth.lockout.locks").tag("dimension", "address").register(meterRegistry);
+        this.usernameRejections = Counter.builder("auth.lockout.rejections").tag("dimension", "username").register(meterRegistry);
+        this.addressRejections = Counter.builder("auth.lockout.rejections").tag("dimension", "address").register(meterRegistry);
+    }
+
+    public boolean isUsernameLocked(String username) {
+        if (Objects.isNull(username)) {
+            return false;
+        }
+        boolean locked = count(byUsername, username) >= maxUsernameFailures;
+        if (locked) {
+            usernameRejections.increment();
+        }
+        return locked;
+    }
+
+    public boolean isAddressLocked(String address) {
+        if (Objects.isNull(address)) {
+            return false;
+        }
+        boolean locked = count(byAddress, address) >= maxAddressFailures;
+        if (locked) {
+            addressRejections.increment();
+        }
+        return locked;
+    }
+
+    public void recordFailure(String username, String address) {
+        if (Objects.nonNull(username) && increment(byUsername, username) == maxUsernameFailures) {
+            usernameLocks.increment();
+            log.warn("Locking username={} after {} failed logins", username, maxUsernameFailures);
+        }
+        if (Objects.nonNull(address) && increment(byAddress, address) == maxAddressFailures) {
+            addressLocks.increment();
+            log.warn("Locking address={} after {} failed logins", address, maxAddressFailures);
+        }
+    }
+
+    private static Cache<String, FailureWindow> newCounters(long maxTrackedKeys, long windowSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterWrite(Duration.ofSeconds(windowSeconds))
+                .build();
+    }
+
+    private int count(Cache<String, FailureWindow> counters, String key) {
+        FailureWindow window = counters.getIfPresent(key);
+        return Objects.isNull(window) ? 0 : window.count(System.currentTimeMillis() / bucketMillis);
+    }
+
+    /**
+     * Counts through {@code compute} so every failure is a write and restarts the key's expiry.
+     */
+    private int increment(Cache<String, FailureWindow> counters, String key) {
+        long epoch = System.currentTimeMillis() / bucketMillis;
+        int[] total = new int[1];
+        counters.asMap().compute(key, (ignored, window) -> {
+            FailureWindow current = Objects.isNull(window) ? new FailureWindow(buckets) : window;
+            total[0] = current.increment(epoch);
+            return current;
+        });
+        return total[0];
+    }
+
+    private static final class FailureWindow {
+
+        private final long[] epochs;
+        private final int[] counts;
+
+        private FailureWindow(int buckets) {
+            this.epochs = new long[buckets];
+            this.counts = new int[buckets];
+        }
+
+        private synchronized int increment(long epoch) {
+            int slot = (int) (epoch % epochs.length);
+            if (epochs[slot] != epoch) {
+                epochs[slot] = epoch;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+            return count(epoch);
+        }
+
+        private synchronized int count(long epoch) {
+            int total = 0;
+            for (int b = 0; b < epochs.length; b++) {
+                if (epoch - epochs[b] < epochs.length) {
+                    total += counts[b];
+                }
+            }
+            return total;
+        }
+    }
+}
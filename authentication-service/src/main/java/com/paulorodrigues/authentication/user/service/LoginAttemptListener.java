@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds failed logins seen by the authentication providers into {@link LoginAttemptLimiter}.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+public class LoginAttemptListener {
+
+    @Autowired
+    private LoginAttemptLimiter loginAttemptLimiter;
+
+    @EventListener
+    public void onFailure(AuthenticationFailureBadCredentialsEvent event) {
+        Object details = event.getAuthentication().getDetails();
+        String address = details instanceof WebAuthenticationDetails ? ((WebAuthenticationDetails) details).getRemoteAddress() : null;
+        loginAttemptLimiter.recordFailure(event.getAuthentication().getName(), address);
+    }
+}
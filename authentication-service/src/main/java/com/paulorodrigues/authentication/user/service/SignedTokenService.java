@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
+import com.paulorodrigues.authentication.commons.model.Login;
+import com.paulorodrigues.authentication.commons.model.Token;
+import com.paulorodrigues.authentication.commons.util.MessageUtil;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and verifies self-contained RS256 access tokens (compact JWS). Verification needs
+ * only the public keys held by {@link TokenKeyRing}, so any node can check a token without I/O.
+ *
+ * @author paulo.rodrigues
+ */
+@Service
+@Log4j2
+public class SignedTokenService {
+
+    private static final String JWS_ALGORITHM = "RS256";
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final ThreadLocal<Signature> SIGNATURES = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(SIGNATURE_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final TokenKeyRing keyRing;
+    private final ObjectMapper objectMapper;
+    private final CustomUserDetailsService userDetailsService;
+    private final PasswordEncoder passwordEncoder;
+    private final LoginAttemptLimiter loginAttemptLimiter;
+
+    @Autowired
+    public SignedTokenService(TokenKeyRing keyRing, ObjectMapper objectMapper,
+                              CustomUserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                              LoginAttemptLimiter loginAttemptLimiter) {
+        this.keyRing = keyRing;
+        this.objectMapper = objectMapper;
+        this.userDetailsService = userDetailsService;
+        this.passwordEncoder = passwordEncoder;
+        this.loginAttemptLimiter = loginAttemptLimiter;
+    }
+
+    public Token issue(Login login, String remoteAddress) throws InvalidRequestException {
+        if (loginAttemptLimiter.isAddressLocked(remoteAddress) || loginAttemptLimiter.isUsernameLocked(login.getUserName())) {
+            throw new InvalidRequestException(MessageUtil.getMessage("USER_LOCKED"));
+        }
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(login.getUserName());
+        } catch (UsernameNotFoundException e) {
+            loginAttemptLimiter.recordFailure(login.getUserName(), remoteAddress);
+            throw new InvalidRequestException(MessageUtil.getMessage("INCORRECT_PASSWORD"));
+        }
+        if (!passwordEncoder.matches(login.getPassword(), user.getPassword())) {
+            loginAttemptLimiter.recordFailure(login.getUserName(), remoteAddress);
+            throw new InvalidRequestException(MessageUtil.getMessage("INCORRECT_PASSWORD"));
+        }
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            user = userDetailsService.updatePassword(user, passwordEncoder.encode(login.getPassword()));
+        }
+        log.info("Issuing signed token username={}", user.getUsername());
+        return issue(user);
+    }
+
+    public Token issue(UserDetails user) {
+        TokenKeyRing.SigningKey signingKey = keyRing.getSigningKey();
+        List<String> roles = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+        long expiresAt = Instant.now().getEpochSecond() + keyRing.getTokenTtlSeconds();
+
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("alg", JWS_ALGORITHM);
+        header.put("typ", "JWT");
+        header.put("kid", signingKey.getKeyId());
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", user.getUsername());
+        claims.put("roles", roles);
+        claims.put("exp", expiresAt);
+
+        String signingInput = encodeJson(header) + "." + encodeJson(claims);
+        byte[] signature;
+        try {
+            Signature signer = SIGNATURES.get();
+            signer.initSign(signingKey.getPrivateKey());
+            signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            signature = signer.sign();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign token", e);
+        }
+        return Token.builder()
+                .userName(user.getUsername())
+                .value(signingInput + "." + ENCODER.encodeToString(signature))
+                .roles(roles)
+                .expiresAt(expiresAt)
+                .keyId(signingKey.getKeyId())
+                .build();
+    }
+
+    /**
+     * Checks signature and expiry and returns the claims; throws {@link InvalidTokenException} otherwise.
+     */
+    public Token verify(String value) {
+        int headerEnd = Objects.isNull(value) ? -1 : value.indexOf('.');
+        int claimsEnd = headerEnd < 0 ? -1 : value.indexOf('.', headerEnd + 1);
+        if (claimsEnd < 0 || value.indexOf('.', claimsEnd + 1) >= 0) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        JsonNode header = decodeJson(value.substring(0, headerEnd));
+        if (!JWS_ALGORITHM.equals(header.path("alg").asText())) {
+            throw new InvalidTokenException("Unsupported token algorithm");
+        }
+        String keyId = header.path("kid").asText(null);
+        PublicKey publicKey = keyRing.getPublicKey(keyId);
+        if (Objects.isNull(publicKey)) {
+            throw new InvalidTokenException("Unknown token key");
+        }
+        try {
+            Signature verifier = SIGNATURES.get();
+            verifier.initVerify(publicKey);
+            verifier.update(value.substring(0, claimsEnd).getBytes(StandardCharsets.US_ASCII));
+            if (!verifier.verify(DECODER.decode(value.substring(claimsEnd + 1)))) {
+                throw new InvalidTokenException("Invalid token signature");
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Invalid token signature");
+        }
+
+        JsonNode claims = decodeJson(value.substring(headerEnd + 1, claimsEnd));
+        long expiresAt = claims.path("exp").asLong();
+        if (expiresAt <= Instant.now().getEpochSecond()) {
+            throw new InvalidTokenException("Token expired");
+        }
+        List<String> roles = new ArrayList<>();
+        claims.path("roles").forEach(role -> roles.add(role.asText()));
+        return Token.builder()
+                .userName(claims.path("sub").asText())
+                .value(value)
+                .roles(roles)
+                .expiresAt(expiresAt)
+                .keyId(keyId)
+                .build();
+    }
+
+    private String encodeJson(Map<String, Object> json) {
+        try {
+            return ENCODER.encodeToString(objectMapper.writeValueAsBytes(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize token", e);
+        }
+    }
+
+    private JsonNode decodeJson(String part) {
+        try {
+            return objectMapper.readTree(DECODER.decode(part));
+        } catch (Exception e) {
+            throw new InvalidTokenException("Malformed token");
+        }
+    }
+}
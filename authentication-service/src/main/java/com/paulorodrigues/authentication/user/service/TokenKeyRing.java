@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.*;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.paulorodrigues.authentication.commons.util.FormatUtil.isEmpty;
+
+/**
+ * Holds the RSA key used to sign access tokens and the public keys accepted when verifying them.
+ * After a rotation the previous public key stays valid until every token it signed has expired.
+ * A generated key is known to this node only, so it is rotated here on a schedule; configured
+ * keys are shared by every node and are rotated through configuration instead.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class TokenKeyRing {
+
+    private static final String KEY_ALGORITHM = "RSA";
+    private static final int GENERATED_KEY_SIZE = 2048;
+
+    private final long tokenTtlSeconds;
+    private final boolean generated;
+    private final Map<String, VerificationKey> verificationKeys = new ConcurrentHashMap<>();
+    private volatile SigningKey current;
+
+    @Autowired
+    public TokenKeyRing(@Value("${auth.token.key-id:}") String keyId,
+                        @Value("${auth.token.private-key:}") String privateKey,
+                        @Value("${auth.token.public-key:}") String publicKey,
+                        @Value("${auth.token.previous-key-id:}") String previousKeyId,
+                        @Value("${auth.token.previous-public-key:}") String previousPublicKey,
+                        @Value("${auth.token.ttl-seconds:3600}") long tokenTtlSeconds) throws GeneralSecurityException {
+        this.tokenTtlSeconds = tokenTtlSeconds;
+        this.generated = isEmpty(privateKey) || isEmpty(publicKey);
+        if (generated) {
+            log.warn("No token signing key configured, generating an ephemeral key valid only on this node");
+            KeyPair keyPair = generateKeyPair();
+            install(isEmpty(keyId) ? UUID.randomUUID().toString() : keyId, keyPair.getPrivate(), keyPair.getPublic());
+        } else {
+            install(keyId, decodePrivateKey(privateKey), decodePublicKey(publicKey));
+        }
+        if (!isEmpty(previousKeyId) && !isEmpty(previousPublicKey)) {
+            verificationKeys.put(previousKeyId, new VerificationKey(decodePublicKey(previousPublicKey), retireAt()));
+        }
+    }
+
+    public SigningKey getSigningKey() {
+        return current;
+    }
+
+    public long getTokenTtlSeconds() {
+        return tokenTtlSeconds;
+    }
+
+    /**
+     * In-memory lookup only; returns null for unknown or retired key ids.
+     */
+    public PublicKey getPublicKey(String keyId) {
+        if (Objects.isNull(keyId)) {
+            return null;
+        }
+        VerificationKey key = verificationKeys.get(keyId);
+        if (Objects.isNull(key)) {
+            return null;
+        }
+        if (key.retireAt != null && Instant.now().isAfter(key.retireAt)) {
+            verificationKeys.remove(keyId, key);
+            log.info("Retired token verification key keyId={}", keyId);
+            return null;
+        }
+        return key.publicKey;
+    }
+
+    @Scheduled(initialDelayString = "${auth.token.rotation-interval-ms:86400000}",
+            fixedDelayString = "${auth.token.rotation-interval-ms:86400000}")
+    public void rotateGeneratedKey() {
+        if (!generated) {
+            return;
+        }
+        try {
+            rotate(UUID.randomUUID().toString(), generateKeyPair());
+        } catch (GeneralSecurityException e) {
+            log.error("Exception on token signing key rotation, message={}", e.getMessage());
+        }
+    }
+
+    public synchronized void rotate(String keyId, KeyPair keyPair) {
+        String previousKeyId = current.keyId;
+        VerificationKey previous = verificationKeys.get(previousKeyId);
+        if (Objects.nonNull(previous)) {
+            verificationKeys.put(previousKeyId, new VerificationKey(previous.publicKey, retireAt()));
+        }
+        install(keyId, keyPair.getPrivate(), keyPair.getPublic());
+        log.info("Rotated token signing key from keyId={} to keyId={}", previousKeyId, keyId);
+    }
+
+    private void install(String keyId, PrivateKey privateKey, PublicKey publicKey) {
+        verificationKeys.put(keyId, new VerificationKey(publicKey, null));
+        this.current = new SigningKey(keyId, privateKey);
+    }
+
+    private static KeyPair generateKeyPair() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+        generator.initialize(GENERATED_KEY_SIZE);
+        return generator.generateKeyPair();
+    }
+
+    private Instant retireAt() {
+        return Instant.now().plusSeconds(tokenTtlSeconds);
+    }
+
+    private static PrivateKey decodePrivateKey(String base64) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return KeyFactory.getInstance(KEY_ALGORITHM).generatePrivate(new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(base64)));
+    }
+
+    private static PublicKey decodePublicKey(String base64) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return KeyFactory.getInstance(KEY_ALGORITHM).generatePublic(new X509EncodedKeySpec(Base64.getMimeDecoder().decode(base64)));
+    }
+
+    public static final class SigningKey {
+
+        private final String keyId;
+        private final PrivateKey privateKey;
+
+        private SigningKey(String keyId, PrivateKey privateKey) {
+            this.keyId = keyId;
+            this.privateKey = privateKey;
+        }
+
+        public String getKeyId() {
+            return keyId;
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+    }
+
+    private static final class VerificationKey {
+
+        private final PublicKey publicKey;
+        private final Instant retireAt;
+
+        private VerificationKey(PublicKey publicKey, Instant retireAt) {
+            this.publicKey = publicKey;
+            this.retireAt = retireAt;
+        }
+    }
+}
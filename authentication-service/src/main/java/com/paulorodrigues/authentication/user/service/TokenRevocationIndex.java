@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revoked access tokens, kept only until they would have expired anyway.
+ * <p>
+ * Tokens are reduced to a 64-bit fingerprint. A Bloom filter in front answers most checks
+ * for non-revoked tokens without touching the exact set. The filter rotates through two
+ * generations of one token TTL each, so it never needs deletes and its memory is fixed.
+ * The exact set is purged in expiry order, so it holds at most the revocations of one TTL.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class TokenRevocationIndex {
+
+    private final long tokenTtlSeconds;
+    private final int bitsPerGeneration;
+    private final int hashFunctions;
+
+    private final Map<Long, Long> revoked = new ConcurrentHashMap<>();
+    private final PriorityQueue<Revocation> byExpiry = new PriorityQueue<>();
+
+    private volatile BloomGeneration current;
+    private volatile BloomGeneration previous;
+
+    private final Counter filterNegatives;
+    private final Counter exactLookups;
+
+    @Autowired
+    public TokenRevocationIndex(@Value("${auth.token.ttl-seconds:3600}") long tokenTtlSeconds,
+                                @Value("${auth.token.revocation.expected-per-ttl:200000}") int expectedPerTtl,
+                                @Value("${auth.token.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                MeterRegistry meterRegistry) {
+        this.tokenTtlSeconds = tokenTtlSeconds;
+        double ln2 = Math.log(2);
+        this.bitsPerGeneration = (int) Math.ceil(-expectedPerTtl * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitsPerGeneration / expectedPerTtl * ln2));
+        long now = Instant.now().getEpochSecond();
+        this.current = new BloomGeneration(bitsPerGeneration, now);
+        this.previous = new BloomGeneration(bitsPerGeneration, now - tokenTtlSeconds);
+
+        this.filterNegatives = Counter.builder("auth.token.revocation.checks").tag("result", "filter_negative").register(meterRegistry);
+        this.exactLookups = Counter.builder("auth.token.revocation.checks").tag("result", "exact_lookup").register(meterRegistry);
+        Gauge.builder("auth.token.revocation.size", revoked, Map::size).register(meterRegistry);
+        log.info("Token revocation index created bitsPerGeneration={}, hashFunctions={}", bitsPerGeneration, hashFunctions);
+    }
+
+    public void revoke(String token, long expiresAtEpochSecond) {
+        long now = Instant.now().getEpochSecond();
+        if (expiresAtEpochSecond <= now) {
+            return;
+        }
+        long fingerprint = fingerprint(token);
+        rotateIfNeeded(now);
+        current.add(fingerprint, hashFunctions);
+        Long previousExpiry = revoked.put(fingerprint, expiresAtEpochSecond);
+        if (previousExpiry == null || previousExpiry != expiresAtEpochSecond) {
+            synchronized (byExpiry) {
+                byExpiry.add(new Revocation(expiresAtEpochSecond, fingerprint));
+            }
+        }
+        purgeExpired(now);
+    }
+
+    public void revoke(String token) {
+        revoke(token, Instant.now().getEpochSecond() + tokenTtlSeconds);
+    }
+
+    public boolean isRevoked(String token) {
+        long fingerprint = fingerprint(token);
+        BloomGeneration cur = current;
+        BloomGeneration prev = previous;
+        if (!cur.mightContain(fingerprint, hashFunctions) && !prev.mightContain(fingerprint, hashFunctions)) {
+            filterNegatives.increment();
+            return false;
+        }
+        exactLookups.increment();
+        Long expiresAt = revoked.get(fingerprint);
+        return expiresAt != null && expiresAt > Instant.now().getEpochSecond();
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.token.revocation.purge-interval-ms:60000}")
+    public void purge() {
+        long now = Instant.now().getEpochSecond();
+        rotateIfNeeded(now);
+        purgeExpired(now);
+    }
+
+    private void purgeExpired(long now) {
+        synchronized (byExpiry) {
+            Revocation head;
+            while ((head = byExpiry.peek()) != null && head.expiresAt <= now) {
+                byExpiry.poll();
+                revoked.remove(head.fingerprint, head.expiresAt);
+            }
+        }
+    }
+
+    private void rotateIfNeeded(long now) {
+        if (now - current.startedAt < tokenTtlSeconds) {
+            return;
+        }
+        synchronized (this) {
+            if (now - current.startedAt >= tokenTtlSeconds) {
+                previous = current;
+                current = new BloomGeneration(bitsPerGeneration, now);
+            }
+        }
+    }
+
+    static long fingerprint(String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class BloomGeneration {
+
+        private final AtomicLongArray words;
+        private final int bits;
+        private final long startedAt;
+
+        private BloomGeneration(int bits, long startedAt) {
+            this.words = new AtomicLongArray((bits + 63) >>> 6);
+            this.bits = words.length() << 6;
+            this.startedAt = startedAt;
+        }
+
+        private void add(long fingerprint, int hashFunctions) {
+            int h1 = (int) fingerprint;
+            int h2 = (int) (fingerprint >>> 32);
+            for (int i = 0; i < hashFunctions; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                int word = bit >>> 6;
+                long mask = 1L << bit;
+                long value;
+                do {
+                    value = words.get(word);
+                } while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask));
+            }
+        }
+
+        private boolean mightContain(long fingerprint, int hashFunctions) {
+            int h1 = (int) fingerprint;
+            int h2 = (int) (fingerprint >>> 32);
+            for (int i = 0; i < hashFunctions; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Revocation implements Comparable<Revocation> {
+
+        private final long expiresAt;
+        private final long fingerprint;
+
+        private Revocation(long expiresAt, long fingerprint) {
+            this.expiresAt = expiresAt;
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public int compareTo(Revocation other) {
+            return Long.compare(expiresAt, other.expiresAt);
+        }
+    }
+}
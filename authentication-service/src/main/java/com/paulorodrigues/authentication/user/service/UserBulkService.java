@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service;
+
+import com.paulorodrigues.authentication.address.entity.Address;
+import com.paulorodrigues.authentication.address.entity.City;
+import com.paulorodrigues.authentication.address.entity.Country;
+import com.paulorodrigues.authentication.address.repository.AddressRepository;
+import com.paulorodrigues.authentication.address.repository.CityRepository;
+import com.paulorodrigues.authentication.address.repository.CountryRepository;
+import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
+import com.paulorodrigues.authentication.commons.model.BulkUserResult;
+import com.paulorodrigues.authentication.commons.model.Login;
+import com.paulorodrigues.authentication.commons.model.PersonDTO;
+import com.paulorodrigues.authentication.commons.model.UserDTO;
+import com.paulorodrigues.authentication.commons.util.MessageUtil;
+import com.paulorodrigues.authentication.person.entity.Person;
+import com.paulorodrigues.authentication.person.service.PersonSearchIndex;
+import com.paulorodrigues.authentication.user.entity.Role;
+import com.paulorodrigues.authentication.user.entity.User;
+import com.paulorodrigues.authentication.user.repository.RoleRepository;
+import com.paulorodrigues.authentication.user.repository.UserRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates users in bulk: rows are validated one by one, passwords are hashed in parallel and
+ * users, people and roles are written with JDBC batches using ids pre-allocated per chunk.
+ * Each chunk commits on its own, so a failing chunk does not undo the ones before it.
+ *
+ * @author paulo.rodrigues
+ */
+@Service
+@Log4j2
+public class UserBulkService {
+
+    private static final String INSERT_PERSON = "INSERT INTO person (id, first_name, last_name, nick_name, birthdate, gender, email, cpf, "
+            + "birth_city_id, birth_country_id, address_id, description, create_at, create_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER = "INSERT INTO lbs_user (id, username, password, person_id, create_at, create_by) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_role (user_id, role_id) VALUES (?, ?)";
+    private static final String NEXT_IDS = "SELECT nextval('%s') FROM generate_series(1, ?)";
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RoleRepository roleRepository;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    CityRepository cityRepository;
+
+    @Autowired
+    CountryRepository countryRepository;
+
+    @Autowired
+    PasswordHashingEngine passwordHashingEngine;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PersonSearchIndex personSearchIndex;
+
+    private final TransactionTemplate chunkTransaction;
+
+    @Value("${auth.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${auth.bulk.max-users:50000}")
+    private int maxUsers;
+
+    @Autowired
+    public UserBulkService(PlatformTransactionManager transactionManager) {
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public List<BulkUserResult> create(List<UserDTO> users) throws InvalidRequestException {
+        if (Objects.isNull(users) || users.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (users.size() > maxUsers) {
+            throw new InvalidRequestException(MessageUtil.getMessage("BULK_TOO_LARGE", maxUsers + ""));
+        }
+        log.info("Bulk creating users size={}", users.size());
+        Role clientRole = clientRole();
+        References references = loadReferences(users);
+        BulkUserResult[] results = new BulkUserResult[users.size()];
+        for (int from = 0; from < users.size(); from += chunkSize) {
+            createChunk(users, from, Math.min(from + chunkSize, users.size()), clientRole, references, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void createChunk(List<UserDTO> users, int from, int to, Role clientRole, References references, BulkUserResult[] results) {
+        List<Integer> indexes = new ArrayList<>(to - from);
+        List<User> accepted = new ArrayList<>(to - from);
+        Set<String> existing = new HashSet<>(userRepository.findExistingUsernames(users.subList(from, to).stream()
+                .filter(Objects::nonNull)
+                .map(UserDTO::getUsername)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList())));
+        for (int i = from; i < to; i++) {
+            UserDTO dto = users.get(i);
+            String username = Objects.isNull(dto) ? null : dto.getUsername();
+            try {
+                if (Objects.isNull(dto)) {
+                    throw new InvalidRequestException(MessageUtil.getMessage("USER_IS_NULL"));
+                }
+                User user = toUser(dto, references);
+                user.validation();
+                if (Objects.nonNull(user.getPerson())) {
+                    user.getPerson().validation();
+                    user.getPerson().persistAt();
+                }
+                if (!existing.add(username)) {
+                    throw new InvalidRequestException(MessageUtil.getMessage("USER_FIELDS_DUPLICATED"));
+                }
+                user.persistAt();
+                user.setRoles(List.of(clientRole));
+                indexes.add(i);
+                accepted.add(user);
+            } catch (Exception e) {
+                results[i] = failure(i, username, e.getMessage());
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<String> hashes = passwordHashingEngine.encodeAll(accepted.stream().map(User::getPassword).collect(Collectors.toList()));
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).setPassword(hashes.get(i));
+        }
+        try {
+            chunkTransaction.executeWithoutResult(status -> insert(accepted));
+            // JDBC inserts bypass the entity listeners, so the committed people are indexed here
+            accepted.stream().map(User::getPerson).filter(Objects::nonNull).forEach(person -> personSearchIndex.upsert(
+                    person.getId(), person.getFirstName(), person.getLastName(), person.getNickName(), person.getEmail(), person.getCpf()));
+            for (int i = 0; i < accepted.size(); i++) {
+                User user = accepted.get(i);
+                results[indexes.get(i)] = BulkUserResult.builder()
+                        .index(indexes.get(i))
+                        .username(user.getUsername())
+                        .id(user.getId())
+                        .success(true)
+                        .build();
+            }
+            log.info("Bulk created users from={}, to={}, created={}", from, to, accepted.size());
+        } catch (DataAccessException e) {
+            log.error("Exception on bulk create chunk from={}, to={}, message={}", from, to, e.getMessage());
+            String message = MessageUtil.getMessage("DATA_INTEGRITY_VIOLATION");
+            for (int i = 0; i < accepted.size(); i++) {
+                results[indexes.get(i)] = failure(indexes.get(i), accepted.get(i).getUsername(), message);
+            }
+        }
+    }
+
+    private void insert(List<User> users) {
+        List<Person> people = users.stream().map(User::getPerson).filter(Objects::nonNull).collect(Collectors.toList());
+        Iterator<Long> personIds = nextIds("person_id_seq", people.size()).iterator();
+        people.forEach(person -> person.setId(personIds.next()));
+        Iterator<Long> userIds = nextIds("user_id_seq", users.size()).iterator();
+        users.forEach(user -> user.setId(userIds.next()));
+
+        jdbcTemplate.batchUpdate(INSERT_PERSON, people, chunkSize, (ps, person) -> {
+            ps.setLong(1, person.getId());
+            ps.setString(2, person.getFirstName());
+            ps.setString(3, person.getLastName());
+            ps.setString(4, person.getNickName());
+            ps.setObject(5, Objects.isNull(person.getBirthdate()) ? null : Date.valueOf(person.getBirthdate()));
+            ps.setString(6, Objects.isNull(person.getGender()) ? null : person.getGender().name());
+            ps.setString(7, person.getEmail());
+            ps.setString(8, person.getCpf());
+            ps.setObject(9, Objects.isNull(person.getBirthCity()) ? null : person.getBirthCity().getId());
+            ps.setObject(10, Objects.isNull(person.getBirthCountry()) ? null : person.getBirthCountry().getId());
+            ps.setObject(11, Objects.isNull(person.getAddress()) ? null : person.getAddress().getId());
+            ps.setString(12, person.getDescription());
+            ps.setObject(13, Objects.isNull(person.getCreateAt()) ? null : Date.valueOf(person.getCreateAt()));
+            ps.setString(14, person.getCreateBy());
+        });
+        jdbcTemplate.batchUpdate(INSERT_USER, users, chunkSize, (ps, user) -> {
+            ps.setLong(1, user.getId());
+            ps.setString(2, user.getUsername());
+            ps.setString(3, user.getPassword());
+            ps.setObject(4, Objects.isNull(user.getPerson()) ? null : user.getPerson().getId());
+            ps.setObject(5, Objects.isNull(user.getCreateAt()) ? null : Date.valueOf(user.getCreateAt()));
+            ps.setString(6, user.getCreateBy());
+        });
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, users, chunkSize, (ps, user) -> {
+            ps.setLong(1, user.getId());
+            ps.setLong(2, user.getRoles().get(0).getId());
+        });
+    }
+
+    /**
+     * One round trip for a whole block of ids, instead of one per row with allocationSize = 1.
+     */
+    private List<Long> nextIds(String sequence, int count) {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        return jdbcTemplate.queryForList(String.format(NEXT_IDS, sequence), Long.class, count);
+    }
+
+    private User toUser(UserDTO dto, References references) {
+        return User.builder()
+                .username(dto.getUsername())
+                .password(dto.getPassword())
+                .person(toPerson(dto.getPerson(), references))
+                .build();
+    }
+
+    private Person toPerson(PersonDTO dto, References references) {
+        if (Objects.isNull(dto)) {
+            return null;
+        }
+        return Person.builder()
+                .firstName(dto.getFirstName())
+                .lastName(dto.getLastName())
+                .gender(dto.getGender())
+                .email(dto.getEmail())
+                .address(Objects.isNull(dto.getAddress()) ? null : references.addresses.get(dto.getAddress().getId()))
+                .birthdate(dto.getBirthdate())
+                .birthCity(Objects.isNull(dto.getBirthCity()) ? null : references.cities.get(dto.getBirthCity().getId()))
+                .birthCountry(Objects.isNull(dto.getBirthCountry()) ? null : references.countries.get(dto.getBirthCountry().getId()))
+                .build();
+    }
+
+    private Role clientRole() {
+        Role role = roleRepository.findByName(Login.ROLE_CLIENT);
+        if (role == null) {
+            role = roleRepository.save(new Role(Login.ROLE_CLIENT));
+        }
+        return role;
+    }
+
+    /**
+     * Addresses, cities and countries referenced by the request, fetched with one query each.
+     */
+    private References loadReferences(List<UserDTO> users) {
+        List<PersonDTO> people = users.stream()
+                .filter(Objects::nonNull)
+                .map(UserDTO::getPerson)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Set<Long> addressIds = people.stream().filter(p -> Objects.nonNull(p.getAddress()))
+                .map(p -> p.getAddress().getId()).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> cityIds = people.stream().filter(p -> Objects.nonNull(p.getBirthCity()))
+                .map(p -> p.getBirthCity().getId()).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> countryIds = people.stream().filter(p -> Objects.nonNull(p.getBirthCountry()))
+                .map(p -> p.getBirthCountry().getId()).filter(Objects::nonNull).collect(Collectors.toSet());
+        References references = new References();
+        references.addresses = addressRepository.findAllById(addressIds).stream()
+                .collect(Collectors.toMap(Address::getId, Function.identity()));
+        references.cities = cityRepository.findAllById(cityIds).stream()
+                .collect(Collectors.toMap(City::getId, Function.identity()));
+        references.countries = countryRepository.findAllById(countryIds).stream()
+                .collect(Collectors.toMap(Country::getId, Function.identity()));
+        return references;
+    }
+
+    private static BulkUserResult failure(int index, String username, String message) {
+        return BulkUserResult.builder()
+                .index(index)
+                .username(username)
+                .success(false)
+                .message(message)
+                .build();
+    }
+
+    private static final class References {
+        private Map<Long, Address> addresses;
+        private Map<Long, City> cities;
+        private Map<Long, Country> countries;
+    }
+}
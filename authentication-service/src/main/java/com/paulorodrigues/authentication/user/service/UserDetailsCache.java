@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Bounded in-process cache of the principals resolved by {@link CustomUserDetailsService}.
+ * Entries expire after a TTL and are evicted by size; {@link UserService} invalidates
+ * a username whenever it changes the user, so the TTL only bounds staleness on other nodes.
+ * Hit, miss and eviction counters are published under the "userDetails" cache name.
+ *
+ * @author paulo.rodrigues
+ */
+@Component
+@Log4j2
+public class UserDetailsCache implements UserCache {
+
+    public static final String CACHE_NAME = "userDetails";
+
+    private final Cache<String, UserDetails> cache;
+
+    @Autowired
+    public UserDetailsCache(@Value("${auth.cache.user-details.max-size:10000}") long maxSize,
+                            @Value("${auth.cache.user-details.ttl-seconds:300}") long ttlSeconds,
+                            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        log.info("User details cache created maxSize={}, ttlSeconds={}", maxSize, ttlSeconds);
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return Objects.isNull(username) ? null : cache.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        if (Objects.nonNull(username)) {
+            cache.invalidate(username);
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
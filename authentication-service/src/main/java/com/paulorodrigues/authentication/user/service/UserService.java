@@ -1,31 +1,38 @@
 package com.paulorodrigues.authentication.user.service;
 
 
+import com.paulorodrigues.authentication.commons.enums.ExportFormat;
 import com.paulorodrigues.authentication.commons.exception.InvalidRequestException;
 import com.paulorodrigues.authentication.commons.exception.NotFoundException;
 import com.paulorodrigues.authentication.commons.model.*;
 import com.paulorodrigues.authentication.commons.util.FormatUtil;
+import com.paulorodrigues.authentication.commons.util.KeysetQuery;
 import com.paulorodrigues.authentication.commons.util.MessageUtil;
+import com.paulorodrigues.authentication.config.PageCountEstimator;
+import com.paulorodrigues.authentication.config.StreamingExporter;
 import com.paulorodrigues.authentication.person.service.PersonService;
 import com.paulorodrigues.authentication.user.entity.Role;
 import com.paulorodrigues.authentication.user.entity.User;
 import com.paulorodrigues.authentication.user.repository.RoleRepository;
 import com.paulorodrigues.authentication.user.repository.UserRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import lombok.extern.log4j.Log4j2;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +44,13 @@ import java.util.stream.Collectors;
 @Log4j2
 public class UserService {
 
+    private static final Map<String, Class<?>> KEYSET_SORT_COLUMNS = Map.of(
+            KeysetQuery.ID_COLUMN, Long.class,
+            "username", String.class);
+
+    @PersistenceContext
+    EntityManager entityManager;
+
     @Autowired
     UserRepository userRepository;
 
@@ -49,6 +63,15 @@ public class UserService {
     @Autowired
     PersonService personService;
 
+    @Autowired
+    PageCountEstimator pageCountEstimator;
+
+    @Autowired
+    StreamingExporter streamingExporter;
+
+    @Autowired
+    UserDetailsCache userDetailsCache;
+
 
     public Page<User> findPageable(UserQuery filter, Pageable pageable) {
         log.info("Finding pageable users by filter={}", filter);
@@ -60,6 +83,64 @@ public class UserService {
                 pageable);
     }
 
+    /**
+     * Page of {@link #findPageable} without the count query; {@code totalCount} is filled
+     * by {@link #estimateCount} only when the client asks for an estimate.
+     */
+    public Slice<User> findSlice(UserQuery filter, Pageable pageable) {
+        log.info("Finding sliced users by filter={}", filter);
+        return userRepository.findSlice(
+                filter.getId(),
+                filter.getUsername(),
+                filter.getStartDate(),
+                filter.getEndDate(),
+                pageable);
+    }
+
+    public long estimateCount(UserQuery filter) {
+        return pageCountEstimator.estimate("lbs_user", filterParameters(filter), () -> userRepository.countFiltered(
+                filter.getId(),
+                filter.getUsername(),
+                filter.getStartDate(),
+                filter.getEndDate()));
+    }
+
+    /**
+     * Keyset page of {@link #findPageable}, sorted by id or username, without a count query.
+     */
+    public KeysetQuery.Slice<User> findKeyset(UserQuery filter) throws InvalidRequestException {
+        log.info("Finding keyset users by filter={}", filter);
+        return KeysetQuery.fetch(entityManager, User.class, "c", UserRepository.FILTER, filterParameters(filter), KEYSET_SORT_COLUMNS, filter);
+    }
+
+    /**
+     * Parameters of {@link UserRepository#FILTER}.
+     */
+    private static Map<String, Object> filterParameters(UserQuery filter) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", filter.getId());
+        parameters.put("name", filter.getUsername());
+        parameters.put("startDate", filter.getStartDate());
+        parameters.put("finalDate", filter.getEndDate());
+        return parameters;
+    }
+
+    /**
+     * Every user ordered by username, without passwords.
+     */
+    public ResponseEntity<StreamingResponseBody> export(ExportFormat format) {
+        log.info("Exporting users format={}", format);
+        LinkedHashMap<String, Function<UserDTO, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", UserDTO::getId);
+        columns.put("username", UserDTO::getUsername);
+        columns.put("personId", user -> Objects.isNull(user.getPerson()) ? null : user.getPerson().getId());
+        columns.put("firstName", user -> Objects.isNull(user.getPerson()) ? null : user.getPerson().getFirstName());
+        columns.put("lastName", user -> Objects.isNull(user.getPerson()) ? null : user.getPerson().getLastName());
+        columns.put("email", user -> Objects.isNull(user.getPerson()) ? null : user.getPerson().getEmail());
+        columns.put("roles", user -> user.getRoles().stream().map(RoleDTO::getName).collect(Collectors.joining("|")));
+        return streamingExporter.export("users", format, userRepository::streamAllForExport, user -> user.toDTO().hidePassword(), columns);
+    }
+
     public User findById(Long userId) throws NotFoundException {
         log.info("Finding user by userId={}", userId);
         Optional<User> user = userRepository.findById(userId);
@@ -105,6 +186,7 @@ public class UserService {
 
     public UserDTO edit(Long userId, UserDTO userDetail) throws InvalidRequestException, NotFoundException {
         User userToEdit = findById(userId);
+        String previousUsername = userToEdit.getUsername();
         String pw = userToEdit.getPassword();
         LocalDate createAt = userToEdit.getCreateAt();
         String createBy = userToEdit.getCreateBy();
@@ -115,13 +197,17 @@ public class UserService {
         userToEdit.setCreateBy(createBy);
         userToEdit.setPassword(pw);
         log.info("Updating user id={}, userName={}", userToEdit.getId(), userToEdit.getUsername());
-        return save(userToEdit).toDTO();
+        UserDTO edited = save(userToEdit).toDTO();
+        userDetailsCache.removeUserFromCache(previousUsername);
+        userDetailsCache.removeUserFromCache(userToEdit.getUsername());
+        return edited;
     }
 
     public void delete(Long userId) throws NotFoundException {
         User userToDelete = findById(userId);
         log.info("Deleting id={}, userName={}", userToDelete.getId(), userToDelete.getUsername());
         userRepository.delete(userToDelete);
+        userDetailsCache.removeUserFromCache(userToDelete.getUsername());
     }
 
     public User getUserFromDTO(UserDTO dto){
@@ -156,6 +242,7 @@ public class UserService {
         }
         user.setPassword(passwordEncoder.encode(updatePassword.getNewPassword()));
         userRepository.save(user);
+        userDetailsCache.removeUserFromCache(user.getUsername());
     }
 
     private boolean checkIfValidOldPassword(final User user, final String oldPassword) {
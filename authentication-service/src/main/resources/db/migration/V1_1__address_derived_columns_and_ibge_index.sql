@@ -0,0 +1,12 @@
+-- Columns and indexes added on top of the pre-Flyway schema. Databases baselined at version 1
+-- never run V1, so everything here must also apply to a schema that predates Flyway.
+
+-- Address.fmtAddress, materialized on write and backfilled by AddressFormatService
+ALTER TABLE address ADD COLUMN IF NOT EXISTS fmt_address varchar(600);
+
+-- Address.latitude / longitude, parsed from coordination and read by AddressSpatialIndex
+ALTER TABLE address ADD COLUMN IF NOT EXISTS latitude double precision;
+ALTER TABLE address ADD COLUMN IF NOT EXISTS longitude double precision;
+
+-- City.ibgeCode lookups of GeoDataImporter and CepFileBuilder
+CREATE UNIQUE INDEX IF NOT EXISTS idx_ibge_code_city ON city (ibge_code);
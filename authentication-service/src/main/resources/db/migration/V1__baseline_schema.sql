@@ -0,0 +1,115 @@
+-- Schema as it stood before Flyway, so an empty database migrates from scratch.
+-- Databases created before Flyway already hold these tables: FlywayConfiguration baselines
+-- them at version 1 (baseline-on-migrate), which skips this script and runs V1_1 onwards.
+-- Columns and indexes added since then belong in later versions, never here.
+
+CREATE SEQUENCE IF NOT EXISTS country_id_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS state_id_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS city_id_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS address_id_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS person_id_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS user_id_seq START WITH 1 INCREMENT BY 1;
+-- Role ids use GenerationType.AUTO, which Hibernate 6 maps to <entity>_seq with an increment of 50
+CREATE SEQUENCE IF NOT EXISTS role_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS country (
+    id   bigint       NOT NULL,
+    name varchar(100) NOT NULL,
+    CONSTRAINT country_pkey PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_name_country ON country (name);
+
+CREATE TABLE IF NOT EXISTS state_country (
+    id         bigint       NOT NULL,
+    name       varchar(100) NOT NULL,
+    country_id bigint       NOT NULL,
+    CONSTRAINT state_country_pkey PRIMARY KEY (id),
+    CONSTRAINT country_state FOREIGN KEY (country_id) REFERENCES country (id)
+);
+CREATE INDEX IF NOT EXISTS idx_name_state ON state_country (name);
+
+CREATE TABLE IF NOT EXISTS city (
+    id         bigint       NOT NULL,
+    name       varchar(100) NOT NULL,
+    state_id   bigint       NOT NULL,
+    country_id bigint       NOT NULL,
+    ibge_code  varchar(10),
+    CONSTRAINT city_pkey PRIMARY KEY (id),
+    CONSTRAINT state_city FOREIGN KEY (state_id) REFERENCES state_country (id),
+    CONSTRAINT country_city FOREIGN KEY (country_id) REFERENCES country (id)
+);
+CREATE INDEX IF NOT EXISTS idx_name_city ON city (name);
+
+CREATE TABLE IF NOT EXISTS address (
+    id                bigint       NOT NULL,
+    logradouro        varchar(255),
+    city_id           bigint       NOT NULL,
+    name              varchar(100) NOT NULL,
+    number            varchar(9),
+    cep               varchar(8),
+    zip_code          varchar(12),
+    neighborhood      varchar(100),
+    coordination      varchar(20),
+    referential_point varchar(200),
+    create_at         date,
+    create_by         varchar(255),
+    update_at         date,
+    update_by         varchar(255),
+    CONSTRAINT address_pkey PRIMARY KEY (id),
+    CONSTRAINT city_address FOREIGN KEY (city_id) REFERENCES city (id)
+);
+CREATE INDEX IF NOT EXISTS idx_name_address ON address (name);
+
+CREATE TABLE IF NOT EXISTS person (
+    id               bigint       NOT NULL,
+    first_name       varchar(100) NOT NULL,
+    last_name        varchar(100) NOT NULL,
+    nick_name        varchar(100),
+    birthdate        date,
+    gender           varchar(255),
+    email            varchar(100),
+    cpf              varchar(11),
+    birth_city_id    bigint,
+    birth_country_id bigint,
+    address_id       bigint,
+    description      varchar(600),
+    create_at        date,
+    create_by        varchar(255),
+    update_at        date,
+    update_by        varchar(255),
+    CONSTRAINT person_pkey PRIMARY KEY (id),
+    CONSTRAINT unique_cpf UNIQUE (cpf),
+    CONSTRAINT birth_city_person FOREIGN KEY (birth_city_id) REFERENCES city (id),
+    CONSTRAINT birth_country_person FOREIGN KEY (birth_country_id) REFERENCES country (id),
+    CONSTRAINT address_person FOREIGN KEY (address_id) REFERENCES address (id)
+);
+CREATE INDEX IF NOT EXISTS idx_first_name_person ON person (first_name);
+
+CREATE TABLE IF NOT EXISTS role (
+    id   bigint NOT NULL,
+    name varchar(255),
+    CONSTRAINT role_pkey PRIMARY KEY (id),
+    CONSTRAINT unique_role_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS lbs_user (
+    id        bigint       NOT NULL,
+    username  varchar(100) NOT NULL,
+    password  varchar(100),
+    person_id bigint,
+    create_at date,
+    create_by varchar(255),
+    update_at date,
+    update_by varchar(255),
+    CONSTRAINT lbs_user_pkey PRIMARY KEY (id),
+    CONSTRAINT unique_username UNIQUE (username),
+    CONSTRAINT person_user FOREIGN KEY (person_id) REFERENCES person (id)
+);
+
+CREATE TABLE IF NOT EXISTS user_role (
+    user_id bigint NOT NULL,
+    role_id bigint NOT NULL,
+    CONSTRAINT user_role_user FOREIGN KEY (user_id) REFERENCES lbs_user (id),
+    CONSTRAINT user_role_role FOREIGN KEY (role_id) REFERENCES role (id)
+);
+CREATE INDEX IF NOT EXISTS idx_user_role_user ON user_role (user_id);
@@ -0,0 +1,21 @@
+-- Fuzzy, accent- and case-insensitive address search backed by a trigram index.
+-- Versioned 2 so it still runs on databases baselined at version 1 (see FlywayConfiguration),
+-- after V1_1 has added the fmt_address column it indexes.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() is only STABLE, the explicit dictionary makes this wrapper safe to mark IMMUTABLE
+-- so it can back an expression index. AddressRepository.searchIds must call it the same way.
+CREATE OR REPLACE FUNCTION address_search_text(name text, neighborhood text, fmt_address text)
+    RETURNS text
+    LANGUAGE sql
+    IMMUTABLE
+    PARALLEL SAFE
+AS $$
+    SELECT public.unaccent('public.unaccent'::regdictionary,
+                           lower(coalesce(name, '') || ' ' || coalesce(neighborhood, '') || ' ' || coalesce(fmt_address, '')))
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_address_search_trgm
+    ON address USING gin (address_search_text(name, neighborhood, fmt_address) gin_trgm_ops);
@@ -0,0 +1,8 @@
+-- Composite indexes behind keyset pagination (KeysetQuery): each page is an index range scan
+-- starting right after the (sort value, id) pair of the previous page.
+-- person and lbs_user come from V1 on new databases, or predate Flyway on databases baselined at
+-- version 1 (see FlywayConfiguration).
+
+CREATE INDEX IF NOT EXISTS idx_person_first_name_id ON person (first_name, id);
+CREATE INDEX IF NOT EXISTS idx_person_last_name_id ON person (last_name, id);
+CREATE INDEX IF NOT EXISTS idx_user_username_id ON lbs_user (username, id);
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication
+
+import jakarta.persistence.EntityManagerFactory
+import org.hibernate.SessionFactory
+import org.hibernate.stat.Statistics
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import org.testcontainers.containers.PostgreSQLContainer
+import spock.lang.Specification
+
+/**
+ * Application context over a throwaway Postgres, migrated by Flyway from V1 and validated
+ * against the entities. One container serves every specification of the run; each feature
+ * starts from empty tables. The second-level cache is off so statement counts are exact.
+ *
+ * @author paulo.rodrigues
+ */
+@SpringBootTest(properties = [
+        "basic.user=test",
+        "basic.password=test",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "auth.l2-cache.enabled=false"])
+abstract class PostgresSpecification extends Specification {
+
+    static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:15-alpine")
+
+    static {
+        POSTGRES.start()
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", { POSTGRES.jdbcUrl })
+        registry.add("spring.datasource.username", { POSTGRES.username })
+        registry.add("spring.datasource.password", { POSTGRES.password })
+    }
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory
+
+    def setup() {
+        jdbcTemplate.execute("TRUNCATE user_role, lbs_user, person, address, city, state_country, country")
+    }
+
+    /**
+     * Number of JDBC statements prepared while {@code action} runs.
+     */
+    long countStatements(Closure action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory).statistics
+        statistics.statisticsEnabled = true
+        statistics.clear()
+        action.call()
+        return statistics.prepareStatementCount
+    }
+
+    long insertCountry(String name) {
+        long id = nextId("country_id_seq")
+        jdbcTemplate.update("INSERT INTO country (id, name) VALUES (?, ?)", id, name)
+        return id
+    }
+
+    long insertState(String name, long countryId) {
+        long id = nextId("state_id_seq")
+        jdbcTemplate.update("INSERT INTO state_country (id, name, country_id) VALUES (?, ?, ?)", id, name, countryId)
+        return id
+    }
+
+    long insertCity(String name, long stateId, long countryId) {
+        long id = nextId("city_id_seq")
+        jdbcTemplate.update("INSERT INTO city (id, name, state_id, country_id) VALUES (?, ?, ?, ?)", id, name, stateId, countryId)
+        return id
+    }
+
+    long insertAddress(String name, String neighborhood, long cityId) {
+        long id = nextId("address_id_seq")
+        jdbcTemplate.update("INSERT INTO address (id, name, neighborhood, city_id) VALUES (?, ?, ?, ?)", id, name, neighborhood, cityId)
+        return id
+    }
+
+    long insertPerson(String firstName, String lastName, Long addressId, Long birthCityId, Long birthCountryId) {
+        long id = nextId("person_id_seq")
+        jdbcTemplate.update("INSERT INTO person (id, first_name, last_name, address_id, birth_city_id, birth_country_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", id, firstName, lastName, addressId, birthCityId, birthCountryId)
+        return id
+    }
+
+    long insertUser(String username) {
+        long id = nextId("user_id_seq")
+        jdbcTemplate.update("INSERT INTO lbs_user (id, username, create_at) VALUES (?, ?, current_date)", id, username)
+        return id
+    }
+
+    private long nextId(String sequence) {
+        return jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long)
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.repository
+
+import com.paulorodrigues.authentication.PostgresSpecification
+import com.paulorodrigues.authentication.commons.model.CityDTO
+import org.springframework.beans.factory.annotation.Autowired
+
+/**
+ * The reference-data projections must read their rows with the city, state and country names
+ * in a single statement, however many rows come back.
+ *
+ * @author paulo.rodrigues
+ */
+class AddressQueryStatementCountSpec extends PostgresSpecification {
+
+    @Autowired
+    CityRepository cityRepository
+
+    @Autowired
+    AddressRepository addressRepository
+
+    long countryId
+    long stateId
+    List<Long> cityIds
+
+    def setup() {
+        countryId = insertCountry("Brasil")
+        stateId = insertState("Parana", countryId)
+        long otherStateId = insertState("Santa Catarina", countryId)
+        cityIds = (1..30).collect { insertCity("Cidade " + it, stateId, countryId) }
+        insertCity("Florianopolis", otherStateId, countryId)
+    }
+
+    def "findDTOByCountryAndState lists the cities in one statement"() {
+        when:
+        List<CityDTO> cities = null
+        long statements = countStatements { cities = cityRepository.findDTOByCountryAndState(countryId, stateId) }
+
+        then:
+        cities.size() == 30
+        statements == 1
+    }
+
+    def "findSummaryById reads the address and its place names in one statement"() {
+        given:
+        long addressId = insertAddress("Rua XV de Novembro", "Centro", cityIds[0])
+
+        when:
+        AddressRepository.AddressSummary summary = null
+        long statements = countStatements { summary = addressRepository.findSummaryById(addressId).get() }
+
+        then:
+        summary.cityName == "Cidade 1"
+        summary.stateName == "Parana"
+        summary.countryName == "Brasil"
+        statements == 1
+    }
+
+    def "findSummariesByName reads every match in one statement"() {
+        given:
+        cityIds.each { insertAddress("Rua das Flores", "Centro", it) }
+
+        when:
+        List<AddressRepository.AddressSummary> summaries = null
+        long statements = countStatements { summaries = addressRepository.findSummariesByName("flores") }
+
+        then:
+        summaries.size() == 30
+        summaries*.stateName.every { it == "Parana" }
+        statements == 1
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.repository
+
+import com.paulorodrigues.authentication.PostgresSpecification
+
+/**
+ * The plan of {@link AddressRepository#searchIds} on a table large enough for the planner to
+ * prefer an index: both the LIKE and the word-similarity predicate must probe
+ * {@code idx_address_search_trgm} instead of scanning the table.
+ *
+ * @author paulo.rodrigues
+ */
+class AddressSearchExplainSpec extends PostgresSpecification {
+
+    private static final List<String> NEIGHBORHOODS = ["Centro", "Batel", "Agua Verde", "Bigorrilho", "Cabral",
+                                                       "Portao", "Merces", "Juveve", "Rebouças", "Boqueirao"]
+
+    def setup() {
+        long countryId = insertCountry("Brasil")
+        long stateId = insertState("Parana", countryId)
+        long cityId = insertCity("Curitiba", stateId, countryId)
+        List<Object[]> rows = (1..20000).collect { int i ->
+            [cityId, "Rua " + Long.toString(i * 7919L, 36), NEIGHBORHOODS[i % NEIGHBORHOODS.size()]] as Object[]
+        }
+        rows.add([cityId, "Avenida Paulista", "Bela Vista"] as Object[])
+        jdbcTemplate.batchUpdate("INSERT INTO address (id, city_id, name, neighborhood) VALUES (nextval('address_id_seq'), ?, ?, ?)", rows)
+        jdbcTemplate.execute("ANALYZE address")
+    }
+
+    def "searchIds is served by the trigram index"() {
+        given:
+        String sql = AddressRepository.SEARCH_IDS
+                .replace(":pattern", "'paulista'")
+                .replace(":term", "'paulista'") + " LIMIT 20"
+
+        when:
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String)
+
+        then:
+        plan.any { it.contains("idx_address_search_trgm") }
+        !plan.any { it.contains("Seq Scan on address") }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.address.service
+
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Reads a data file written in the documented layout, so the record offsets, the binary search
+ * over range starts and the shared neighborhood strings are checked without a database.
+ *
+ * @author paulo.rodrigues
+ */
+class CepIndexSpec extends Specification {
+
+    @TempDir
+    Path directory
+
+    CepIndex cepIndex
+
+    def setup() {
+        // Sorted by start: two ranges sharing "Centro", a gap, a single CEP and one without a neighborhood
+        Path dataFile = directory.resolve("cep.dat")
+        writeDataFile(dataFile, [
+                [1000000, 1099999, 10L, 1L, "Centro"],
+                [20000000, 20099999, 20L, 2L, "Copacabana"],
+                [20100000, 20199999, 21L, 2L, "Centro"],
+                [90619900, 90619900, 30L, 3L, "Partenon"],
+                [99990000, 99999999, 40L, 3L, null]
+        ])
+        cepIndex = new CepIndex(dataFile.toString())
+        cepIndex.reload()
+    }
+
+    def "records follow an eight byte header at a fixed size"() {
+        expect:
+        CepIndex.recordOffset(0) == CepIndex.HEADER_BYTES
+        CepIndex.recordOffset(3) == CepIndex.HEADER_BYTES + 3 * CepIndex.RECORD_BYTES
+        cepIndex.loaded
+        cepIndex.rangeCount == 5
+    }
+
+    @Unroll
+    def "find #cep resolves to city #cityId"() {
+        when:
+        CepIndex.CepLocation location = cepIndex.find(cep)
+
+        then:
+        location.cityId == cityId
+        location.stateId == stateId
+        location.neighborhood == neighborhood
+
+        where:
+        cep         | cityId | stateId | neighborhood
+        "01000000"  | 10L    | 1L      | "Centro"
+        "01099999"  | 10L    | 1L      | "Centro"
+        "01050-000" | 10L    | 1L      | "Centro"
+        "20000000"  | 20L    | 2L      | "Copacabana"
+        "20100000"  | 21L    | 2L      | "Centro"
+        "90619-900" | 30L    | 3L      | "Partenon"
+        "99999999"  | 40L    | 3L      | null
+    }
+
+    @Unroll
+    def "find #cep is null (#reason)"() {
+        expect:
+        cepIndex.find(cep) == null
+
+        where:
+        cep        | reason
+        "00999999" | "below the first range"
+        "01100000" | "gap after a range"
+        "90619899" | "just before a single CEP"
+        "90619901" | "just after a single CEP"
+        "1234567"  | "seven digits"
+        "9061A900" | "not a number"
+        null       | "no CEP"
+    }
+
+    def "a missing data file leaves the index empty"() {
+        given:
+        CepIndex missing = new CepIndex(directory.resolve("absent.dat").toString())
+
+        when:
+        missing.reload()
+
+        then:
+        !missing.loaded
+        missing.rangeCount == 0
+        missing.find("01000000") == null
+    }
+
+    def "a file without the magic number is rejected"() {
+        given:
+        Path dataFile = directory.resolve("other.dat")
+        Files.write(dataFile, new byte[CepIndex.HEADER_BYTES])
+
+        when:
+        new CepIndex(dataFile.toString()).reload()
+
+        then:
+        thrown(IOException)
+    }
+
+    private static void writeDataFile(Path target, List<List> ranges) {
+        Map<String, Integer> offsets = [:]
+        ByteArrayOutputStream strings = new ByteArrayOutputStream()
+        DataOutputStream stringOut = new DataOutputStream(strings)
+        int stringsStart = CepIndex.recordOffset(ranges.size())
+        new DataOutputStream(Files.newOutputStream(target)).withCloseable { out ->
+            out.writeInt(CepIndex.MAGIC)
+            out.writeInt(ranges.size())
+            ranges.each { range ->
+                String neighborhood = range[4]
+                int offset = CepIndex.NO_NEIGHBORHOOD
+                if (neighborhood != null) {
+                    if (!offsets.containsKey(neighborhood)) {
+                        offsets[neighborhood] = stringsStart + strings.size()
+                        byte[] bytes = neighborhood.getBytes(StandardCharsets.UTF_8)
+                        stringOut.writeShort(bytes.length)
+                        stringOut.write(bytes)
+                    }
+                    offset = offsets[neighborhood]
+                }
+                out.writeInt(range[0] as int)
+                out.writeInt(range[1] as int)
+                out.writeLong(range[2] as long)
+                out.writeLong(range[3] as long)
+                out.writeInt(offset)
+            }
+            strings.writeTo(out)
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.config
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * CSV cells written by the exports: quoting, and text that a spreadsheet would run as a formula.
+ *
+ * @author paulo.rodrigues
+ */
+class StreamingExporterSpec extends Specification {
+
+    @Unroll
+    def "csvField writes #value as #field"() {
+        expect:
+        StreamingExporter.csvField(value) == field
+
+        where:
+        value                   || field
+        null                    || ""
+        "Porto Alegre"          || "Porto Alegre"
+        "Rua A, 10"             || '"Rua A, 10"'
+        'say "hi"'              || '"say ""hi"""'
+        "=HYPERLINK(\"x\")"     || "\"'=HYPERLINK(\"\"x\"\")\""
+        "+5511999999999"        || "'+5511999999999"
+        "-1"                    || "'-1"
+        "@SUM(A1:A2)"           || "'@SUM(A1:A2)"
+        "\tcmd"                 || "'\tcmd"
+        -30.0346d               || "-30.0346"
+        -7L                     || "-7"
+    }
+}
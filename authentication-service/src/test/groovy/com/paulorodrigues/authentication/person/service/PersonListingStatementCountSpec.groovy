@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.person.service
+
+import com.paulorodrigues.authentication.PostgresSpecification
+import com.paulorodrigues.authentication.commons.model.PersonQuery
+import com.paulorodrigues.authentication.commons.model.PersonRequest
+import com.paulorodrigues.authentication.commons.model.PersonResponse
+import org.springframework.beans.factory.annotation.Autowired
+
+/**
+ * A person listing loads addresses, birth places and their states and countries with the page
+ * itself, so the number of statements stays the same whatever the page size.
+ *
+ * @author paulo.rodrigues
+ */
+class PersonListingStatementCountSpec extends PostgresSpecification {
+
+    @Autowired
+    PersonService personService
+
+    def setup() {
+        long countryId = insertCountry("Brasil")
+        List<Long> stateIds = [insertState("Parana", countryId), insertState("Santa Catarina", countryId)]
+        List<Long> cityIds = (0..<6).collect { insertCity("Cidade " + it, stateIds[it % 2], countryId) }
+        (0..<120).each {
+            long addressId = insertAddress("Rua " + it, "Centro", cityIds[it % cityIds.size()])
+            insertPerson("Nome " + it, "Sobrenome " + it, addressId, cityIds[(it + 1) % cityIds.size()], countryId)
+        }
+    }
+
+    def "offset pages with an exact count do not issue more statements for larger pages"() {
+        when:
+        PersonResponse small = null
+        PersonResponse large = null
+        long smallStatements = countStatements { small = personService.findByQueryPageable(request(5, null)) }
+        long largeStatements = countStatements { large = personService.findByQueryPageable(request(50, null)) }
+
+        then:
+        small.people.content.size() == 5
+        large.people.content.size() == 50
+        large.people.content.every { it.address.city.name && it.birthCity.name && it.birthCountry.name }
+        largeStatements == smallStatements
+        largeStatements <= 2
+    }
+
+    def "keyset pages do not issue more statements for larger pages"() {
+        when:
+        PersonResponse small = null
+        PersonResponse large = null
+        long smallStatements = countStatements { small = personService.findByQueryPageable(request(5, "")) }
+        long largeStatements = countStatements { large = personService.findByQueryPageable(request(50, "")) }
+
+        then:
+        small.people.content.size() == 5
+        large.people.content.size() == 50
+        large.nextCursor != null
+        large.people.content.every { it.address.city.name && it.birthCity.name && it.birthCountry.name }
+        largeStatements == smallStatements
+        largeStatements == 1
+    }
+
+    private static PersonRequest request(int rowsPerPage, String cursor) {
+        PersonQuery query = new PersonQuery()
+        query.rowsPerPage = rowsPerPage
+        query.sortColumn = "firstName"
+        query.cursor = cursor
+        return PersonRequest.builder().query(query).build()
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.controller
+
+import com.paulorodrigues.authentication.PostgresSpecification
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.http.MediaType
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.test.web.servlet.MockMvc
+
+import static com.paulorodrigues.authentication.commons.util.ConstantsUtil.*
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+
+/**
+ * The user listing reports its paging state (next cursor, count mode results) in response
+ * headers, so they are read here from the HTTP response rather than from the service.
+ *
+ * @author paulo.rodrigues
+ */
+@AutoConfigureMockMvc
+class UserListingHeadersSpec extends PostgresSpecification {
+
+    @Autowired
+    MockMvc mockMvc
+
+    def setup() {
+        (1..12).each { insertUser(String.format("user%02d", it)) }
+    }
+
+    def "keyset pages hand the next cursor to the client until the last page"() {
+        when:
+        MockHttpServletResponse first = fetch([rowsPerPage: 5, sortColumn: "username", cursor: ""])
+        MockHttpServletResponse second = fetch([rowsPerPage: 5, sortColumn: "username", cursor: first.getHeader("nextCursor")])
+        MockHttpServletResponse last = fetch([rowsPerPage: 5, sortColumn: "username", cursor: second.getHeader("nextCursor")])
+
+        then:
+        first.status == 200
+        first.getHeader("nextCursor") != null
+        usernames(first) == (1..5).collect { String.format("user%02d", it) }
+        usernames(second) == (6..10).collect { String.format("user%02d", it) }
+        usernames(last) == ["user11", "user12"]
+        last.getHeader("nextCursor") == null
+    }
+
+    def "an estimated count reports hasNext and a total flagged as estimated"() {
+        when:
+        MockHttpServletResponse response = fetch([currentPage: 1, rowsPerPage: 5, sortColumn: "username", countMode: "ESTIMATED"])
+
+        then:
+        response.status == 200
+        usernames(response).size() == 5
+        response.getHeader("hasNext") == "true"
+        response.getHeader("totalCountEstimated") == "true"
+        response.getHeader("totalCount") as long >= 6
+    }
+
+    def "no count reports only hasNext"() {
+        when:
+        MockHttpServletResponse middle = fetch([currentPage: 2, rowsPerPage: 5, sortColumn: "username", countMode: "NONE"])
+        MockHttpServletResponse last = fetch([currentPage: 3, rowsPerPage: 5, sortColumn: "username", countMode: "NONE"])
+
+        then:
+        usernames(middle) == (6..10).collect { String.format("user%02d", it) }
+        middle.getHeader("hasNext") == "true"
+        last.getHeader("hasNext") == "false"
+        [middle, last].every { it.getHeader("totalCount") == null && it.getHeader("totalCountEstimated") == null }
+    }
+
+    private MockHttpServletResponse fetch(Map query) {
+        return mockMvc.perform(post(USERS_V1_BASE_API + FIND_PAGEABLE_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(JsonOutput.toJson(query)))
+                .andReturn().response
+    }
+
+    private static List<String> usernames(MockHttpServletResponse response) {
+        return new JsonSlurper().parseText(response.contentAsString).collect { it.username }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.controller
+
+import com.paulorodrigues.authentication.PostgresSpecification
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.http.MediaType
+import org.springframework.test.web.servlet.MockMvc
+
+import static com.paulorodrigues.authentication.commons.util.ConstantsUtil.*
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put
+
+/**
+ * The users subtree sits under the permit-all API prefix, so the methods that write users must
+ * be refused to anonymous callers and to authenticated callers without the admin role.
+ *
+ * @author paulo.rodrigues
+ */
+@AutoConfigureMockMvc
+class UserResourceSecuritySpec extends PostgresSpecification {
+
+    static final String BULK_USERS = """[{"username": "bulk.user", "password": "secret"}]"""
+
+    @Autowired
+    MockMvc mockMvc
+
+    def "an anonymous bulk create is refused and creates nobody"() {
+        when:
+        int status = mockMvc.perform(post(USERS_V1_BASE_API + BULK_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(BULK_USERS))
+                .andReturn().response.status
+
+        then:
+        status == 401
+        jdbcTemplate.queryForObject("SELECT count(*) FROM lbs_user", Long) == 0
+    }
+
+    def "a bulk create without the admin role is forbidden"() {
+        when:
+        int status = mockMvc.perform(post(USERS_V1_BASE_API + BULK_PATH)
+                .with(httpBasic("test", "test"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(BULK_USERS))
+                .andReturn().response.status
+
+        then:
+        status == 403
+        jdbcTemplate.queryForObject("SELECT count(*) FROM lbs_user", Long) == 0
+    }
+
+    def "anonymous single-user writes are refused"() {
+        expect:
+        mockMvc.perform(request).andReturn().response.status == 401
+
+        where:
+        request << [
+                post(USERS_V1_BASE_API).contentType(MediaType.APPLICATION_JSON).content("{}"),
+                put(USERS_V1_BASE_API + "/1").contentType(MediaType.APPLICATION_JSON).content("{}"),
+                delete(USERS_V1_BASE_API + "/1"),
+                post(USERS_V1_BASE_API + UPDATE_USER_PATH).contentType(MediaType.APPLICATION_JSON).content("{}")
+        ]
+    }
+}
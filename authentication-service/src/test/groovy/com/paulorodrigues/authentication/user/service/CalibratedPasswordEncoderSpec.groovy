@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Nodes calibrate to different costs, so only hashes below the configured floor may be upgraded;
+ * otherwise each node would rehash the passwords the others just wrote.
+ *
+ * @author paulo.rodrigues
+ */
+class CalibratedPasswordEncoderSpec extends Specification {
+
+    @Unroll
+    def "a node at strength #strength with floor 5 upgrades a cost #storedCost hash: #upgrade"() {
+        given:
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(strength, 5)
+        String stored = new BCryptPasswordEncoder(storedCost).encode("secret")
+
+        expect:
+        encoder.upgradeEncoding(stored) == upgrade
+
+        where:
+        strength | storedCost || upgrade
+        6        | 4          || true
+        6        | 5          || false
+        6        | 7          || false
+        5        | 6          || false
+    }
+
+    def "anything that is not a BCrypt hash is left alone"() {
+        expect:
+        !new CalibratedPasswordEncoder(6, 5).upgradeEncoding(value)
+
+        where:
+        value << [null, "", "{noop}secret"]
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2021 paulo.rodrigues
+ * Profile: <https://github.com/mrpaulo>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.paulorodrigues.authentication.user.service
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+/**
+ * Failures are counted per key, so spraying many usernames or addresses must not push an
+ * unrelated account or client over its limit.
+ *
+ * @author paulo.rodrigues
+ */
+class LoginAttemptLimiterSpec extends Specification {
+
+    static final int MAX_USERNAME_FAILURES = 5
+    static final int MAX_ADDRESS_FAILURES = 50
+
+    LoginAttemptLimiter limiter = new LoginAttemptLimiter(MAX_USERNAME_FAILURES, MAX_ADDRESS_FAILURES, 900, 6, 100_000, new SimpleMeterRegistry())
+
+    def "a username is locked once it reaches the failure limit"() {
+        when:
+        (MAX_USERNAME_FAILURES - 1).times { limiter.recordFailure("alice", null) }
+
+        then:
+        !limiter.isUsernameLocked("alice")
+
+        when:
+        limiter.recordFailure("alice", null)
+
+        then:
+        limiter.isUsernameLocked("alice")
+    }
+
+    def "#usernames distinct failed usernames do not lock out an unrelated user"() {
+        when:
+        (0..<usernames).each { int n ->
+            MAX_USERNAME_FAILURES.times { limiter.recordFailure("stuffed" + n, "10.0.0." + (n % 200)) }
+        }
+
+        then:
+        limiter.isUsernameLocked("stuffed0")
+        !limiter.isUsernameLocked("alice")
+        !limiter.isAddressLocked("192.168.1.10")
+
+        where:
+        usernames << [16_384, 60_000]
+    }
+}